@@ -0,0 +1,63 @@
+package com.example.xiuxianloginserver.benchmark;
+
+import com.example.xiuxianloginserver.dto.LoginResponse;
+import com.example.xiuxianloginserver.util.CustomApiResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomApiResponse 的 JSON / CBOR 序列化，使用与应用相同的 Jackson 模块（显式序列化器 + Blackbird）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiResponseSerializationBenchmark {
+
+    private ObjectMapper json;
+    private ObjectMapper cbor;
+    private CustomApiResponse<LoginResponse> loginResponse;
+    private CustomApiResponse<Object> errorResponse;
+
+    @Setup
+    public void setUp() {
+        json = BenchmarkFixtures.objectMapper(false);
+        cbor = BenchmarkFixtures.objectMapper(true);
+        String accessToken = BenchmarkFixtures.jwtTokenUtil(0)
+                .generateToken(BenchmarkFixtures.USER_ID, "account_password", "player1", null, 1L);
+        loginResponse = CustomApiResponse.success("登录成功",
+                new LoginResponse(BenchmarkFixtures.USER_ID, "player1", "player1", "account_password",
+                        accessToken, "q3Xv9cH1q3Xv9cH1q3Xv9cH1q3Xv9cH1q3Xv9cH1q3Y", 36000L),
+                "/api/auth/login");
+        errorResponse = CustomApiResponse.error(401, "用户名或密码错误", "/api/auth/login");
+    }
+
+    @Benchmark
+    public byte[] loginResponseJson() throws JsonProcessingException {
+        return json.writeValueAsBytes(loginResponse);
+    }
+
+    @Benchmark
+    public byte[] loginResponseCbor() throws JsonProcessingException {
+        return cbor.writeValueAsBytes(loginResponse);
+    }
+
+    @Benchmark
+    public byte[] errorResponseJson() throws JsonProcessingException {
+        return json.writeValueAsBytes(errorResponse);
+    }
+}
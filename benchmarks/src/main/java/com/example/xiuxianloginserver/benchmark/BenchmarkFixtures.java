@@ -0,0 +1,115 @@
+package com.example.xiuxianloginserver.benchmark;
+
+import com.example.xiuxianloginserver.config.JwtProperties;
+import com.example.xiuxianloginserver.config.SerializationConfig;
+import com.example.xiuxianloginserver.models.UserModel;
+import com.example.xiuxianloginserver.util.JwtCodec;
+import com.example.xiuxianloginserver.util.JwtTokenUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Proxy;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * 基准测试共用的对象构造，不启动 Spring 容器、不连接数据库。
+ */
+public final class BenchmarkFixtures {
+
+    public static final long USER_ID = 1234567890123456789L;
+
+    private static final String SIGNING_KEY = Base64.getEncoder().encodeToString(
+            "benchmark-signing-key-benchmark-signing-key-benchmark-signing-ke".getBytes());
+    private static final String FOREIGN_KEY = Base64.getEncoder().encodeToString(
+            "foreign-signing-key-foreign-signing-key-foreign-signing-key-fore".getBytes());
+
+    private BenchmarkFixtures() {
+    }
+
+    public static JwtTokenUtil jwtTokenUtil(long verifiedCacheMaxSize) {
+        return new JwtTokenUtil(jwtCodec(SIGNING_KEY), verifiedCacheMaxSize, new SimpleMeterRegistry());
+    }
+
+    /**
+     * 使用另一把同 kid 的密钥签名，签发的令牌验签失败。
+     */
+    public static JwtTokenUtil foreignJwtTokenUtil() {
+        return new JwtTokenUtil(jwtCodec(FOREIGN_KEY), 0, new SimpleMeterRegistry());
+    }
+
+    public static JwtCodec jwtCodec() {
+        return jwtCodec(SIGNING_KEY);
+    }
+
+    private static JwtCodec jwtCodec(String key) {
+        JwtProperties properties = new JwtProperties();
+        properties.setActiveKid("bench");
+        properties.setKeys(Map.of("bench", key));
+        return new JwtCodec(properties);
+    }
+
+    public static UserModel user() {
+        UserModel user = new UserModel();
+        user.setPlatformUserId(USER_ID);
+        user.setUserName("player1");
+        user.setNickName("player1");
+        user.setAuthType("account_password");
+        return user;
+    }
+
+    /**
+     * 与应用中全局 ObjectMapper 相同的模块配置，cbor 为 true 时输出 CBOR。
+     */
+    public static ObjectMapper objectMapper(boolean cbor) {
+        SerializationConfig config = new SerializationConfig();
+        Jackson2ObjectMapperBuilder builder = cbor ? Jackson2ObjectMapperBuilder.cbor() : Jackson2ObjectMapperBuilder.json();
+        return builder.modulesToInstall(config.authResponseModule(), config.blackbirdModule())
+                // 与 Spring Boot 的默认设置一致
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    /**
+     * 用动态代理实现仓库接口：overrides 中按方法名给出返回值，其余方法返回空结果。
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> overrides) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> override = overrides.get(method.getName());
+            if (override != null) {
+                return override.apply(args);
+            }
+            return switch (method.getName()) {
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> type.getSimpleName() + "Stub";
+                default -> emptyValue(method.getReturnType());
+            };
+        });
+    }
+
+    private static Object emptyValue(Class<?> returnType) {
+        if (returnType == Optional.class) {
+            return Optional.empty();
+        }
+        if (returnType == List.class || returnType == Iterable.class) {
+            return List.of();
+        }
+        if (returnType == boolean.class) {
+            return false;
+        }
+        if (returnType == int.class) {
+            return 0;
+        }
+        if (returnType == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
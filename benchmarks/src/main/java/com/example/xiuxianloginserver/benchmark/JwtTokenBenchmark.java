@@ -0,0 +1,75 @@
+package com.example.xiuxianloginserver.benchmark;
+
+import com.example.xiuxianloginserver.security.CustomUserDetails;
+import com.example.xiuxianloginserver.util.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtTokenUtil 的签发、读取声明和校验。
+ * 读取声明分两种情况：cached 命中已验签令牌缓存（过滤器的常见路径），
+ * uncached 使用容量为 0 的缓存，每次都完整解析并验签。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenBenchmark {
+
+    private JwtTokenUtil cached;
+    private JwtTokenUtil uncached;
+    private String token;
+    private CustomUserDetails userDetails;
+
+    @Setup
+    public void setUp() {
+        cached = BenchmarkFixtures.jwtTokenUtil(100_000);
+        uncached = BenchmarkFixtures.jwtTokenUtil(0);
+        token = cached.generateToken(BenchmarkFixtures.USER_ID, "account_password", "player1", null, 1L);
+        userDetails = new CustomUserDetails(BenchmarkFixtures.user());
+        cached.verify(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cached.generateToken(BenchmarkFixtures.USER_ID, "account_password", "player1", null, 1L);
+    }
+
+    @Benchmark
+    public Long getClaimFromTokenCached() {
+        return cached.getClaimFromToken(token, claims -> claims.get("platformUserId", Long.class));
+    }
+
+    @Benchmark
+    public Long getClaimFromTokenUncached() {
+        return uncached.getClaimFromToken(token, claims -> claims.get("platformUserId", Long.class));
+    }
+
+    @Benchmark
+    public String getSubjectUncached() {
+        return uncached.getClaimFromToken(token, Claims::getSubject);
+    }
+
+    @Benchmark
+    public Boolean validateTokenCached() {
+        return cached.validateToken(token, userDetails);
+    }
+
+    @Benchmark
+    public Boolean validateTokenUncached() {
+        return uncached.validateToken(token, userDetails);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.xiuxianloginserver.filter;
+
+import com.example.xiuxianloginserver.audit.AuditLog;
+import com.example.xiuxianloginserver.benchmark.BenchmarkFixtures;
+import com.example.xiuxianloginserver.common.CustomAuthenticationEntryPoint;
+import com.example.xiuxianloginserver.datasource.ReadYourWritesTracker;
+import com.example.xiuxianloginserver.repository.RevokedTokenRepository;
+import com.example.xiuxianloginserver.repository.UserRepository;
+import com.example.xiuxianloginserver.repository.UserSessionRepository;
+import com.example.xiuxianloginserver.service.CustomUserDetailsService;
+import com.example.xiuxianloginserver.service.SessionGenerationRegistry;
+import com.example.xiuxianloginserver.service.TokenDenylist;
+import com.example.xiuxianloginserver.service.UserStatusTable;
+import com.example.xiuxianloginserver.util.JwtTokenUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtAuthenticationFilter.doFilterInternal 的单次耗时，使用 Mock 请求/响应对象，不经过 Servlet 容器。
+ * 依赖的服务使用真实实现，仓库接口由动态代理代替（不访问数据库）；审计日志写入临时目录。
+ * 放在 filter 包中以便直接调用受保护的 doFilterInternal。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtAuthenticationFilterBenchmark {
+
+    /**
+     * valid-stateless：有效令牌，无状态模式；valid-stateful：有效令牌，按用户 ID 加载用户（命中本地缓存）；
+     * expired / bad-signature / missing-header：被拒绝或跳过的请求。
+     */
+    @Param({"valid-stateless", "valid-stateful", "expired", "bad-signature", "missing-header"})
+    public String scenario;
+
+    private JwtAuthenticationFilter filter;
+    private AuditLog auditLog;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        JwtTokenUtil jwtTokenUtil = BenchmarkFixtures.jwtTokenUtil(100_000);
+        UserRepository userRepository = BenchmarkFixtures.repository(UserRepository.class,
+                Map.of("findById", args -> Optional.of(BenchmarkFixtures.user())));
+        UserStatusTable userStatusTable = new UserStatusTable(userRepository, true);
+        auditLog = new AuditLog(true, Files.createTempDirectory("bench-audit").toString(),
+                65536, 16, 60, 4, 1, 1000);
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtTokenUtil", jwtTokenUtil);
+        ReflectionTestUtils.setField(filter, "customUserDetailsService",
+                new CustomUserDetailsService(userRepository, userStatusTable, 100_000, 300, new SimpleMeterRegistry(),
+                        new ReadYourWritesTracker(false, 0, 0),
+                        BenchmarkFixtures.repository(EntityManagerFactory.class, Map.of())));
+        ReflectionTestUtils.setField(filter, "authenticationEntryPoint", new CustomAuthenticationEntryPoint());
+        ReflectionTestUtils.setField(filter, "userStatusTable", userStatusTable);
+        ReflectionTestUtils.setField(filter, "tokenDenylist",
+                new TokenDenylist(BenchmarkFixtures.repository(RevokedTokenRepository.class, Map.of()), 100_000));
+        ReflectionTestUtils.setField(filter, "auditLog", auditLog);
+        ReflectionTestUtils.setField(filter, "sessionRegistry", new SessionGenerationRegistry(
+                BenchmarkFixtures.repository(UserSessionRepository.class, Map.of()),
+                new TransactionTemplate(BenchmarkFixtures.repository(PlatformTransactionManager.class, Map.of())), jwtTokenUtil, true));
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "statelessEnabled", !"valid-stateful".equals(scenario));
+
+        request = new MockHttpServletRequest("GET", "/api/game/profile");
+        request.setRemoteAddr("10.0.0.1");
+        String token = switch (scenario) {
+            case "expired" -> {
+                long past = System.currentTimeMillis() - 3_600_000L;
+                yield BenchmarkFixtures.jwtCodec().sign(
+                        Map.of("platformUserId", BenchmarkFixtures.USER_ID, "authType", "account_password", "name", "player1"),
+                        String.valueOf(BenchmarkFixtures.USER_ID), new Date(past - 60_000L), new Date(past));
+            }
+            case "bad-signature" -> BenchmarkFixtures.foreignJwtTokenUtil()
+                    .generateToken(BenchmarkFixtures.USER_ID, "account_password", "player1");
+            case "missing-header" -> null;
+            default -> jwtTokenUtil.generateToken(BenchmarkFixtures.USER_ID, "account_password", "player1");
+        };
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> {
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        auditLog.shutdown();
+    }
+
+    @Benchmark
+    public void doFilterInternal(Blackhole blackhole) throws Exception {
+        SecurityContextHolder.clearContext();
+        // 拒绝请求时响应已被提交，复用同一个响应对象前先清除
+        response.setCommitted(false);
+        response.reset();
+        filter.doFilterInternal(request, response, chain);
+        blackhole.consume(response.getStatus());
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.xiuxianloginserver.loadtest;
+
+import com.example.xiuxianloginserver.XiuXianLoginServerApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 以 H2 内存数据库（MySQL 兼容模式）代替 MySQL 启动登录服务器，并批量生成测试用户。
+ * 测试用户的用户名为 lt_user_{序号}，密码均为 {@link #PASSWORD}；
+ * 所有用户共用同一个 BCrypt 哈希（由应用自己的 PasswordEncoder 生成），登录时仍会完整计算一次 BCrypt。
+ */
+final class EmbeddedServer implements AutoCloseable {
+
+    static final String PASSWORD = "loadtest-password";
+    static final String USER_PREFIX = "lt_user_";
+
+    // 测试用户 ID 从这里开始，远小于雪花 ID，不会与注册产生的用户冲突
+    private static final long USER_ID_BASE = 1_000_000_000L;
+    private static final int SEED_CHUNK = 200_000;
+
+    private final ConfigurableApplicationContext context;
+
+    private EmbeddedServer(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    static EmbeddedServer start(LoadTestOptions options) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=" + options.port,
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.hikari.maximum-pool-size=" + Math.max(20, options.concurrency),
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--spring.mvc.log-request-details=false",
+                // application.properties 中的 DEBUG 日志会淹没压测结果
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--logging.level.org.springdoc=WARN",
+                "--logging.level.org.hibernate=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.com.zaxxer.hikari=WARN",
+                // 过载时每个被拒绝的请求都会打一条 WARN，报告里已有失败数
+                "--logging.level.com.example.xiuxianloginserver=ERROR",
+                "--auth.audit.directory=target/loadtest-audit",
+                "--auth.login-rate-limit.enabled=" + options.rateLimit));
+        ConfigurableApplicationContext context = SpringApplication.run(XiuXianLoginServerApplication.class,
+                args.toArray(String[]::new));
+        return new EmbeddedServer(context);
+    }
+
+    int port() {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    /**
+     * 分批插入测试用户，每批一条 INSERT ... SELECT，由数据库自己生成行。
+     */
+    void seedUsers(int count) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        long started = System.nanoTime();
+        for (int from = 1; from <= count; from += SEED_CHUNK) {
+            int to = Math.min(count, from + SEED_CHUNK - 1);
+            jdbcTemplate.update("INSERT INTO users (platform_user_id, user_name, nick_name, password, enabled, banned, auth_type, created_at) "
+                            + "SELECT ? + \"X\", CONCAT(?, \"X\"), CONCAT(?, \"X\"), ?, TRUE, FALSE, 'account_password', CURRENT_TIMESTAMP "
+                            + "FROM SYSTEM_RANGE(?, ?)",
+                    USER_ID_BASE, USER_PREFIX, USER_PREFIX, passwordHash, from, to);
+            System.out.printf("已生成测试用户 %,d / %,d%n", to, count);
+        }
+        System.out.printf("测试用户生成完成，耗时 %.1f 秒%n", (System.nanoTime() - started) / 1e9);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.xiuxianloginserver.loadtest;
+
+/**
+ * 压测的接口，报告按此顺序输出。
+ */
+enum Endpoint {
+    REGISTER("/api/auth/register"),
+    LOGIN("/api/auth/login"),
+    REFRESH("/api/auth/refresh-token"),
+    VALIDATE("/api/auth/validate-token");
+
+    final String path;
+
+    Endpoint(String path) {
+        this.path = path;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.xiuxianloginserver.loadtest;
+
+/**
+ * 压测入口。all 模式下服务器和压测客户端在同一进程中运行，二者会争用 CPU；
+ * 需要更准确的结果时，分别以 server 和 client 模式启动两个进程（可以绑定到不同的 CPU 核）。
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        if (options.mode == LoadTestOptions.Mode.CLIENT) {
+            runTraffic(options, options.target);
+            return;
+        }
+
+        try (EmbeddedServer server = EmbeddedServer.start(options)) {
+            server.seedUsers(options.users);
+            String baseUrl = "http://localhost:" + server.port();
+            if (options.mode == LoadTestOptions.Mode.SERVER) {
+                System.out.printf("服务器已就绪：%s，按 Ctrl+C 退出%n", baseUrl);
+                Thread.currentThread().join();
+            }
+            runTraffic(options, baseUrl);
+        }
+        System.exit(0);
+    }
+
+    private static void runTraffic(LoadTestOptions options, String baseUrl) throws InterruptedException {
+        System.out.printf("压测 %s：并发 %d，%s，预热 %d 秒，正式 %d 秒，比例 %s%n", baseUrl, options.concurrency,
+                options.rate > 0 ? "到达率 " + options.rate + "/s" : "闭环", options.warmupSeconds,
+                options.durationSeconds, options.mix);
+        TrafficDriver.Report report = new TrafficDriver(options, baseUrl).run();
+        report.print();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.xiuxianloginserver.loadtest;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行格式为 --名称=值：
+ * <pre>
+ * --mode=all|server|client   all：同一进程内启动服务器并压测；server：只启动服务器并生成用户；
+ *                            client：只压测 --target 指定的服务器（用户须已由 server 模式生成）
+ * --target=URL               client 模式的服务器地址，默认 http://localhost:8082
+ * --port=0                   server / all 模式的监听端口，0 表示随机
+ * --users=1000000            生成的测试用户数
+ * --concurrency=64           最大并发请求数
+ * --rate=0                   每秒到达的请求数（开环）；0 表示闭环，concurrency 个线程连续发送
+ * --warmup=10                预热秒数，预热期间的结果不计入报告
+ * --duration=60              正式压测秒数
+ * --mix=register:5,login:25,refresh:20,validate:50   各接口的请求比例
+ * --rate-limit=false         是否保留登录限流（压测流量都来自同一 IP，默认关闭）
+ * </pre>
+ */
+final class LoadTestOptions {
+
+    enum Mode { ALL, SERVER, CLIENT }
+
+    final Mode mode;
+    final String target;
+    final int port;
+    final int users;
+    final int concurrency;
+    final int rate;
+    final int warmupSeconds;
+    final int durationSeconds;
+    final Map<Endpoint, Integer> mix;
+    final boolean rateLimit;
+
+    private LoadTestOptions(Map<String, String> values) {
+        this.mode = Mode.valueOf(values.getOrDefault("mode", "all").toUpperCase());
+        this.target = values.getOrDefault("target", "http://localhost:8082");
+        this.port = Integer.parseInt(values.getOrDefault("port", "0"));
+        this.users = Integer.parseInt(values.getOrDefault("users", "1000000"));
+        this.concurrency = Integer.parseInt(values.getOrDefault("concurrency", "64"));
+        this.rate = Integer.parseInt(values.getOrDefault("rate", "0"));
+        this.warmupSeconds = Integer.parseInt(values.getOrDefault("warmup", "10"));
+        this.durationSeconds = Integer.parseInt(values.getOrDefault("duration", "60"));
+        this.mix = parseMix(values.getOrDefault("mix", "register:5,login:25,refresh:20,validate:50"));
+        this.rateLimit = Boolean.parseBoolean(values.getOrDefault("rate-limit", "false"));
+        if (users < 1 || concurrency < 1 || rate < 0 || durationSeconds < 1) {
+            throw new IllegalArgumentException("users, concurrency and duration must be positive, rate must not be negative");
+        }
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Unrecognized argument: " + arg + " (expected --name=value)");
+            }
+            int eq = arg.indexOf('=');
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return new LoadTestOptions(values);
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String spec) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split(":");
+            weights.put(Endpoint.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("mix weights must add up to a positive number");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.xiuxianloginserver.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 固定容量的令牌环，新令牌覆盖最旧的槽位。
+ * 访问令牌可以重复使用（peek），刷新令牌只能使用一次（take 取出后清空槽位）。
+ */
+final class TokenPool {
+
+    private final AtomicReferenceArray<String> slots;
+    private final AtomicLong writeIndex = new AtomicLong();
+
+    TokenPool(int capacity) {
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    void put(String token) {
+        slots.set((int) (writeIndex.getAndIncrement() % slots.length()), token);
+    }
+
+    String peek() {
+        return slots.get(randomSlot());
+    }
+
+    String take() {
+        return slots.getAndSet(randomSlot(), null);
+    }
+
+    private int randomSlot() {
+        long written = Math.min(writeIndex.get(), slots.length());
+        return written == 0 ? 0 : ThreadLocalRandom.current().nextInt((int) written);
+    }
+}
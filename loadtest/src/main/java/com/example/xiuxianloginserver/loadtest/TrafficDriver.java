@@ -0,0 +1,258 @@
+package com.example.xiuxianloginserver.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 混合流量发生器。
+ * 闭环模式（rate=0）：concurrency 个虚拟线程各自连续发送请求。
+ * 开环模式（rate>0）：按固定到达率排定每个请求的计划发送时间，最多 concurrency 个请求同时在途；
+ * 延迟从计划发送时间算起，服务器变慢导致的排队时间也计入延迟（避免协调遗漏）。
+ * 每个接口一个 HdrHistogram，记录微秒级延迟。
+ */
+final class TrafficDriver {
+
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern REFRESH_TOKEN = Pattern.compile("\"refreshToken\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern REGISTER_TOKEN = Pattern.compile("\"data\"\\s*:\\s*\"([^\"]+)\"");
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final HttpClient client;
+    private final Endpoint[] schedule;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong registerCounter = new AtomicLong();
+    private final TokenPool accessTokens = new TokenPool(8192);
+    private final TokenPool refreshTokens = new TokenPool(8192);
+
+    private final Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Histogram> totals = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Long> totalErrors = new EnumMap<>(Endpoint.class);
+
+    private volatile boolean running = true;
+
+    TrafficDriver(LoadTestOptions options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        // 按权重展开成长度 100 左右的数组，每次随机取一个
+        int total = options.mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.schedule = options.mix.entrySet().stream()
+                .flatMap(entry -> Stream.generate(entry::getKey)
+                        .limit(Math.max(1, Math.round(entry.getValue() * 100.0 / total))))
+                .toArray(Endpoint[]::new);
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new Recorder(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(endpoint, new LongAdder());
+            totals.put(endpoint, new Histogram(HIGHEST_TRACKABLE_MICROS, 3));
+            totalErrors.put(endpoint, 0L);
+        }
+    }
+
+    /**
+     * 预热后正式压测，返回正式阶段的统计结果。
+     */
+    Report run() throws InterruptedException {
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        Semaphore inFlight = new Semaphore(options.concurrency);
+        Thread generator = options.rate > 0
+                ? Thread.ofPlatform().name("loadtest-arrivals").start(() -> openLoop(workers, inFlight))
+                : Thread.ofPlatform().name("loadtest-closed-loop").start(() -> closedLoop(workers));
+
+        System.out.printf("预热 %d 秒...%n", options.warmupSeconds);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(options.warmupSeconds));
+        // 丢弃预热阶段的数据
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.get(endpoint).getIntervalHistogram();
+            errors.get(endpoint).sumThenReset();
+        }
+
+        long started = System.nanoTime();
+        // 每 5 秒输出一次区间结果，并累加到总直方图
+        int elapsedSeconds = 0;
+        while (elapsedSeconds < options.durationSeconds) {
+            int step = Math.min(5, options.durationSeconds - elapsedSeconds);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(step));
+            elapsedSeconds += step;
+            printInterval(elapsedSeconds);
+        }
+        long elapsedNanos = System.nanoTime() - started;
+
+        running = false;
+        generator.join();
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+        return new Report(totals, totalErrors, elapsedNanos);
+    }
+
+    private void closedLoop(ExecutorService workers) {
+        for (int i = 0; i < options.concurrency; i++) {
+            workers.submit(() -> {
+                while (running) {
+                    execute(nextEndpoint(), System.nanoTime());
+                }
+            });
+        }
+    }
+
+    private void openLoop(ExecutorService workers, Semaphore inFlight) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        long next = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            if (now < next) {
+                LockSupport.parkNanos(next - now);
+                continue;
+            }
+            long intended = next;
+            next += intervalNanos;
+            try {
+                // 在途请求已满时在这里等待，等待时间计入该请求的延迟
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            workers.submit(() -> {
+                try {
+                    execute(nextEndpoint(), intended);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    private Endpoint nextEndpoint() {
+        return schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+    }
+
+    private void execute(Endpoint endpoint, long intendedStartNanos) {
+        // 刷新和校验需要先有令牌，池中暂时没有时改为登录
+        String token = null;
+        if (endpoint == Endpoint.REFRESH) {
+            token = refreshTokens.take();
+        } else if (endpoint == Endpoint.VALIDATE) {
+            token = accessTokens.peek();
+        }
+        if ((endpoint == Endpoint.REFRESH || endpoint == Endpoint.VALIDATE) && token == null) {
+            endpoint = Endpoint.LOGIN;
+        }
+
+        HttpRequest request = buildRequest(endpoint, token);
+        boolean ok;
+        String body = null;
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            ok = response.statusCode() / 100 == 2;
+            body = response.body();
+        } catch (Exception e) {
+            ok = false;
+        }
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStartNanos);
+        recorders.get(endpoint).recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+        if (!ok) {
+            errors.get(endpoint).increment();
+            return;
+        }
+        collectTokens(endpoint, body);
+    }
+
+    private HttpRequest buildRequest(Endpoint endpoint, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + endpoint.path))
+                .timeout(Duration.ofSeconds(30));
+        return switch (endpoint) {
+            case REGISTER -> builder.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(credentials(
+                            "lt_reg_" + runId + "_" + registerCounter.incrementAndGet()))).build();
+            case LOGIN -> builder.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(credentials(
+                            EmbeddedServer.USER_PREFIX + (1 + ThreadLocalRandom.current().nextInt(options.users))))).build();
+            case REFRESH -> builder.header("Authorization", "Bearer " + token)
+                    .POST(HttpRequest.BodyPublishers.noBody()).build();
+            case VALIDATE -> builder.header("Authorization", "Bearer " + token).GET().build();
+        };
+    }
+
+    private static String credentials(String username) {
+        return "{\"username\":\"" + username + "\",\"password\":\"" + EmbeddedServer.PASSWORD + "\"}";
+    }
+
+    private void collectTokens(Endpoint endpoint, String body) {
+        if (body == null) {
+            return;
+        }
+        Matcher access = (endpoint == Endpoint.REGISTER ? REGISTER_TOKEN : ACCESS_TOKEN).matcher(body);
+        if (access.find()) {
+            accessTokens.put(access.group(1));
+        }
+        Matcher refresh = REFRESH_TOKEN.matcher(body);
+        if (refresh.find()) {
+            refreshTokens.put(refresh.group(1));
+        }
+    }
+
+    private void printInterval(int second) {
+        StringBuilder line = new StringBuilder(String.format("[%3ds]", second));
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram interval = recorders.get(endpoint).getIntervalHistogram();
+            long intervalErrors = errors.get(endpoint).sumThenReset();
+            totals.get(endpoint).add(interval);
+            totalErrors.merge(endpoint, intervalErrors, Long::sum);
+            line.append(String.format("  %s %,d 次 p99 %.1fms 失败 %d", endpoint.name().toLowerCase(),
+                    interval.getTotalCount(), interval.getValueAtPercentile(99) / 1000.0, intervalErrors));
+        }
+        System.out.println(line);
+    }
+
+    /**
+     * 正式压测阶段的汇总结果。
+     */
+    record Report(Map<Endpoint, Histogram> histograms, Map<Endpoint, Long> errors, long elapsedNanos) {
+
+        void print() {
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf("%n%-10s %10s %10s %10s %10s %10s %10s %10s%n",
+                    "endpoint", "requests", "errors", "req/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+            for (Endpoint endpoint : Endpoint.values()) {
+                Histogram histogram = histograms.get(endpoint);
+                if (histogram.getTotalCount() == 0) {
+                    continue;
+                }
+                System.out.printf("%-10s %10d %10d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                        endpoint.name().toLowerCase(),
+                        histogram.getTotalCount(),
+                        errors.get(endpoint),
+                        histogram.getTotalCount() / seconds,
+                        histogram.getValueAtPercentile(50) / 1000.0,
+                        histogram.getValueAtPercentile(99) / 1000.0,
+                        histogram.getValueAtPercentile(99.9) / 1000.0,
+                        histogram.getMaxValue() / 1000.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 线程模型对比压测：对运行中的登录服务器依次压测 login、refresh-token、validate-token，
+ * 输出每个接口的吞吐量与 p50/p99 延迟。配合 compare-thread-models.sh 分别在平台线程和虚拟线程模式下运行。
+ *
+ * 用法：java scripts/ThreadModelBench.java [baseUrl] [concurrency] [durationSeconds]
+ */
+public class ThreadModelBench {
+
+    private static final Pattern REFRESH_TOKEN = Pattern.compile("\"refreshToken\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final String baseUrl;
+    private final HttpClient client;
+
+    ThreadModelBench(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8082";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        ThreadModelBench bench = new ThreadModelBench(baseUrl);
+        String username = "bench_" + UUID.randomUUID().toString().substring(0, 8);
+        String password = "benchPassword";
+        bench.register(username, password);
+        String accessToken = bench.login(username, password);
+
+        System.out.printf("target=%s concurrency=%d duration=%ds%n", baseUrl, concurrency, durationSeconds);
+        System.out.printf("%-16s %10s %8s %12s %10s %10s%n", "endpoint", "requests", "errors", "req/s", "p50(ms)", "p99(ms)");
+
+        bench.run("login", concurrency, durationSeconds, () -> new Step(() -> bench.login(username, password)));
+        bench.run("refresh-token", concurrency, durationSeconds, () -> {
+            // 刷新令牌每次使用后都会轮换，每个工作线程维护自己的令牌链
+            String[] current = {extract(REFRESH_TOKEN, bench.loginBody(username, password))};
+            return new Step(() -> current[0] = bench.refresh(current[0]));
+        });
+        bench.run("validate-token", concurrency, durationSeconds, () -> new Step(() -> bench.validate(accessToken)));
+    }
+
+    private void run(String name, int concurrency, int durationSeconds, StepFactory factory) throws Exception {
+        // 计时前逐个准备工作线程（例如登录取得刷新令牌），避免准备阶段的并发登录被密码哈希的限流拒绝
+        List<Step> steps = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            steps.add(factory.create());
+        }
+        long deadline = System.nanoTime() + Duration.ofSeconds(durationSeconds).toNanos();
+        List<Future<long[]>> futures = new ArrayList<>();
+        int[] errors = new int[concurrency];
+        try (ExecutorService workers = Executors.newFixedThreadPool(concurrency)) {
+            for (int i = 0; i < concurrency; i++) {
+                int worker = i;
+                Step step = steps.get(i);
+                futures.add(workers.submit(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            step.action.run();
+                        } catch (Exception e) {
+                            errors[worker]++;
+                            continue;
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> future : futures) {
+            long[] samples = future.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + samples.length);
+            System.arraycopy(samples, 0, all, offset, samples.length);
+        }
+        Arrays.sort(all);
+        System.out.printf("%-16s %10d %8d %12.1f %10.2f %10.2f%n", name, all.length, Arrays.stream(errors).sum(),
+                all.length / (double) durationSeconds, percentile(all, 0.50), percentile(all, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private void register(String username, String password) throws Exception {
+        send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials(username, password)))
+                .build());
+    }
+
+    private String login(String username, String password) throws Exception {
+        return extract(ACCESS_TOKEN, loginBody(username, password));
+    }
+
+    private String loginBody(String username, String password) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials(username, password)))
+                .build());
+    }
+
+    private String refresh(String refreshToken) throws Exception {
+        String body = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/refresh-token"))
+                .header("Authorization", "Bearer " + refreshToken)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build());
+        return extract(REFRESH_TOKEN, body);
+    }
+
+    private void validate(String token) throws Exception {
+        send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/validate-token"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build());
+    }
+
+    private String send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri().getPath() + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private static String credentials(String username, String password) {
+        return "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+    }
+
+    private static String extract(Pattern pattern, String body) {
+        Matcher matcher = pattern.matcher(body);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected response: " + body);
+        }
+        return matcher.group(1);
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    private interface StepFactory {
+        Step create() throws Exception;
+    }
+
+    private record Step(Action action) {
+    }
+}
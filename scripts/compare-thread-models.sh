@@ -0,0 +1,38 @@
+#!/usr/bin/env bash
+# 对比平台线程与虚拟线程两种模式下 login / refresh-token / validate-token 的吞吐量和 p99 延迟。
+# 需要 JDK 21，以及 application.properties 中配置的 MySQL 可用。
+# 压测反复以同一账号登录，因此关闭按用户名的登录限流和单会话模式（否则每次登录都会让之前签发的令牌失效）。
+# 用法：scripts/compare-thread-models.sh [concurrency] [durationSeconds]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+CONCURRENCY="${1:-64}"
+DURATION="${2:-30}"
+PORT="${PORT:-8082}"
+
+./mvnw -q -DskipTests package
+JAR="$(ls target/XiuXianLoginServer-*-exec.jar | head -n 1)"
+
+for VIRTUAL in false true; do
+  echo "==== spring.threads.virtual.enabled=${VIRTUAL} ===="
+  java -Djdk.tracePinnedThreads=short -jar "$JAR" \
+    --server.port="$PORT" \
+    --spring.threads.virtual.enabled="$VIRTUAL" \
+    --auth.login-rate-limit.enabled=false \
+    --auth.single-session.enabled=false \
+    --logging.level.root=WARN \
+    --logging.level.org.springframework=WARN \
+    --logging.level.org.hibernate=WARN \
+    --spring.jpa.show-sql=false > "target/bench-virtual-${VIRTUAL}.log" 2>&1 &
+  SERVER_PID=$!
+  trap 'kill "$SERVER_PID" 2>/dev/null || true' EXIT
+
+  until curl -s -o /dev/null "http://localhost:${PORT}/api/auth/validate-token"; do
+    sleep 1
+  done
+
+  java scripts/ThreadModelBench.java "http://localhost:${PORT}" "$CONCURRENCY" "$DURATION"
+
+  kill "$SERVER_PID"
+  wait "$SERVER_PID" 2>/dev/null || true
+done
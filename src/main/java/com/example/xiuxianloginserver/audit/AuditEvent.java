@@ -0,0 +1,16 @@
+package com.example.xiuxianloginserver.audit;
+
+import java.time.Instant;
+
+/**
+ * 从段文件中读出的一条审计事件。userId 为 0 表示未知用户。
+ */
+public record AuditEvent(long timestampMillis, AuditEventType type, long userId, String clientIp, String detail) {
+
+    @Override
+    public String toString() {
+        return Instant.ofEpochMilli(timestampMillis) + " " + type + " userId=" + userId
+                + " ip=" + (clientIp != null ? clientIp : "-")
+                + " " + (detail != null ? detail : "");
+    }
+}
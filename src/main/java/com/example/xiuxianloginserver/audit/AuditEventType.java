@@ -0,0 +1,43 @@
+package com.example.xiuxianloginserver.audit;
+
+/**
+ * 审计事件类型。写入段文件时只保存 code，新增类型只能追加，不能修改已有的 code。
+ */
+public enum AuditEventType {
+
+    LOGIN_SUCCESS(1),
+    LOGIN_FAILURE(2),
+    LOGIN_THROTTLED(3),
+    REGISTER(4),
+    REGISTER_FAILURE(5),
+    TOKEN_REFRESH(6),
+    TOKEN_REFRESH_FAILURE(7),
+    LOGOUT(8),
+    TOKEN_REJECTED(9);
+
+    private static final AuditEventType[] BY_CODE = new AuditEventType[16];
+
+    static {
+        for (AuditEventType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    AuditEventType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static AuditEventType fromCode(byte code) {
+        AuditEventType type = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown audit event code: " + code);
+        }
+        return type;
+    }
+}
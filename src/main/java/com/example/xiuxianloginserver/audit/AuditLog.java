@@ -0,0 +1,133 @@
+package com.example.xiuxianloginserver.audit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 登录审计日志：记录登录、注册、刷新、登出以及各类失败事件，供客服查询和风控复核。
+ * 请求线程只把事件放入无锁环形缓冲区（一次 CAS 加几次字段写入），由单个后台线程批量写入内存映射的段文件，
+ * 不占用数据库写入能力。缓冲区满时丢弃事件并计数，审计永远不会拖慢或阻塞登录请求。
+ */
+@Component
+public class AuditLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final int DRAIN_BATCH = 4096;
+
+    private final boolean enabled;
+    private final AuditRingBuffer ringBuffer;
+    private final AuditSegmentWriter writer;
+    private final long flushIntervalMillis;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    public AuditLog(@Value("${auth.audit.enabled:true}") boolean enabled,
+                    @Value("${auth.audit.directory:./audit}") String directory,
+                    @Value("${auth.audit.ring-capacity:65536}") int ringCapacity,
+                    @Value("${auth.audit.segment-size-mb:64}") int segmentSizeMb,
+                    @Value("${auth.audit.roll-interval-minutes:60}") long rollIntervalMinutes,
+                    @Value("${auth.audit.max-segments:200}") int maxSegments,
+                    @Value("${auth.audit.retention-days:30}") long retentionDays,
+                    @Value("${auth.audit.flush-interval-ms:1000}") long flushIntervalMillis) throws IOException {
+        this.enabled = enabled;
+        this.flushIntervalMillis = flushIntervalMillis;
+        if (!enabled) {
+            this.ringBuffer = null;
+            this.writer = null;
+            this.writerThread = null;
+            return;
+        }
+        this.ringBuffer = new AuditRingBuffer(ringCapacity);
+        this.writer = new AuditSegmentWriter(Path.of(directory), segmentSizeMb * 1024 * 1024,
+                Duration.ofMinutes(rollIntervalMinutes).toMillis(), maxSegments, Duration.ofDays(retentionDays).toMillis());
+        this.writerThread = new Thread(this::writeLoop, "audit-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            writerThread.start();
+            logger.info("审计日志已启用，缓冲区容量：{}", ringBuffer.capacity());
+        }
+    }
+
+    /**
+     * 记录一条审计事件，可在任意线程调用，不做 I/O、不加锁。
+     *
+     * @param userId   用户 ID，未知时传 null
+     * @param clientIp 客户端 IP，可为 null
+     * @param detail   补充信息，例如用户名或失败原因，可为 null
+     */
+    public void record(AuditEventType type, Long userId, String clientIp, String detail) {
+        if (enabled) {
+            ringBuffer.offer(System.currentTimeMillis(), type, userId != null ? userId : 0L, clientIp, detail);
+        }
+    }
+
+    public long getDroppedCount() {
+        return enabled ? ringBuffer.getDroppedCount() : 0L;
+    }
+
+    private void writeLoop() {
+        long lastFlush = System.currentTimeMillis();
+        while (running) {
+            int drained = drainOnce();
+            long now = System.currentTimeMillis();
+            if (now - lastFlush >= flushIntervalMillis) {
+                writer.flush();
+                lastFlush = now;
+            }
+            if (drained == 0) {
+                // 没有事件时挂起到下次刷盘，有新事件发布或关闭时被唤醒
+                long untilFlush = Math.max(1, lastFlush + flushIntervalMillis - now);
+                ringBuffer.awaitEvents(TimeUnit.MILLISECONDS.toNanos(untilFlush));
+            }
+        }
+    }
+
+    private int drainOnce() {
+        return ringBuffer.drain(this::write, DRAIN_BATCH);
+    }
+
+    // 写入失败只丢弃当前事件，不能抛出异常，否则消费位置不会前进
+    private void write(long timestampMillis, AuditEventType type, long userId, String clientIp, String detail) {
+        try {
+            writer.append(timestampMillis, type, userId, clientIp, detail);
+        } catch (Exception e) {
+            logger.error("写入审计日志失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        if (writerThread.isAlive()) {
+            // 环形缓冲区只允许一个消费者，写入线程还在运行时不能在这里消费或关闭写入器
+            logger.warn("审计日志写入线程未能在 5 秒内结束，剩余事件可能丢失");
+            return;
+        }
+        // 写出停止前剩余的事件
+        while (drainOnce() > 0) {
+            // 继续
+        }
+        writer.close();
+        logger.info("审计日志已关闭，累计丢弃事件：{}", ringBuffer.getDroppedCount());
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.xiuxianloginserver.audit;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * 审计段文件的读取与查询工具，可以在服务运行时读取（只读映射，不加锁）。
+ *
+ * 命令行用法：
+ * <pre>
+ * java -cp target/classes com.example.xiuxianloginserver.audit.AuditLogReader &lt;目录&gt;
+ *      [--user 用户ID] [--type 事件类型] [--ip 客户端IP] [--from 2024-01-01T00:00:00Z] [--to ...] [--limit 条数]
+ * </pre>
+ */
+public final class AuditLogReader {
+
+    private AuditLogReader() {
+    }
+
+    /**
+     * 按时间顺序读取目录下所有段文件中满足条件的事件。
+     *
+     * @param limit 最多返回的条数，小于等于 0 表示不限制
+     */
+    public static List<AuditEvent> read(Path directory, Predicate<AuditEvent> filter, int limit) throws IOException {
+        List<AuditEvent> result = new ArrayList<>();
+        for (Path segment : AuditSegmentWriter.listSegments(directory)) {
+            if (!readSegment(segment, filter, limit, result)) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    // 返回 false 表示已达到 limit
+    private static boolean readSegment(Path file, Predicate<AuditEvent> filter, int limit, List<AuditEvent> result)
+            throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.remaining() < AuditSegmentWriter.HEADER_BYTES
+                || buffer.getInt() != AuditSegmentWriter.MAGIC
+                || buffer.getInt() != AuditSegmentWriter.VERSION) {
+            return true;  // 不是审计段文件或版本不兼容，跳过
+        }
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;  // 数据末尾，或者写入方正在写这条记录
+            }
+            int next = buffer.position() + length;
+            long timestampMillis = buffer.getLong();
+            AuditEventType type = AuditEventType.fromCode(buffer.get());
+            long userId = buffer.getLong();
+            String clientIp = getString(buffer);
+            String detail = getString(buffer);
+            buffer.position(next);
+
+            AuditEvent event = new AuditEvent(timestampMillis, type, userId, clientIp, detail);
+            if (filter.test(event)) {
+                result.add(event);
+                if (limit > 0 && result.size() >= limit) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String getString(MappedByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: AuditLogReader <directory> [--user id] [--type TYPE] [--ip ip] "
+                    + "[--from ISO-8601] [--to ISO-8601] [--limit n]");
+            System.exit(1);
+        }
+        Path directory = Path.of(args[0]);
+        Predicate<AuditEvent> filter = event -> true;
+        int limit = 0;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--user" -> {
+                    long userId = Long.parseLong(value);
+                    filter = filter.and(event -> event.userId() == userId);
+                }
+                case "--type" -> {
+                    AuditEventType type = AuditEventType.valueOf(value.toUpperCase(Locale.ROOT));
+                    filter = filter.and(event -> event.type() == type);
+                }
+                case "--ip" -> filter = filter.and(event -> value.equals(event.clientIp()));
+                case "--from" -> {
+                    long from = Instant.parse(value).toEpochMilli();
+                    filter = filter.and(event -> event.timestampMillis() >= from);
+                }
+                case "--to" -> {
+                    long to = Instant.parse(value).toEpochMilli();
+                    filter = filter.and(event -> event.timestampMillis() < to);
+                }
+                case "--limit" -> limit = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        List<AuditEvent> events = read(directory, filter, limit);
+        events.forEach(System.out::println);
+        System.err.println(events.size() + " event(s)");
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.xiuxianloginserver.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 多生产者、单消费者的无锁环形缓冲区，槽位在创建时预先分配。
+ * 每个槽位有一个序号：序号等于写入位置时槽位空闲，等于写入位置 + 1 时数据已发布。
+ * 生产者 CAS 抢占写入位置后直接填写槽位字段，再以 release 语义发布序号；消费者读到已发布的序号后读取字段，
+ * 读完把序号推进一圈，槽位即可复用。缓冲区满时直接丢弃事件并计数，不阻塞请求线程。
+ * 消费者没有事件可读时在 {@link #awaitEvents(long)} 中挂起，生产者发布后发现消费者在等待才唤醒它。
+ */
+public final class AuditRingBuffer {
+
+    /**
+     * 预分配的槽位，字段的可见性由序号的 release/acquire 保证。
+     */
+    static final class Slot {
+        long timestampMillis;
+        AuditEventType type;
+        long userId;
+        String clientIp;
+        String detail;
+    }
+
+    /**
+     * 消费者回调，槽位只在回调期间有效。
+     */
+    interface SlotConsumer {
+        void accept(long timestampMillis, AuditEventType type, long userId, String clientIp, String detail);
+    }
+
+    private final Slot[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong writePosition = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    // 只有消费者线程访问
+    private long readPosition;
+    // 正在等待事件的消费者线程，不在等待时为 null
+    private volatile Thread waitingConsumer;
+
+    public AuditRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.slots = new Slot[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 发布一条事件，缓冲区已满时返回 false。
+     */
+    public boolean offer(long timestampMillis, AuditEventType type, long userId, String clientIp, String detail) {
+        while (true) {
+            long position = writePosition.get();
+            int index = (int) (position & mask);
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (writePosition.compareAndSet(position, position + 1)) {
+                    Slot slot = slots[index];
+                    slot.timestampMillis = timestampMillis;
+                    slot.type = type;
+                    slot.userId = userId;
+                    slot.clientIp = clientIp;
+                    slot.detail = detail;
+                    // 发布序号和读取 waitingConsumer 都是 volatile 访问，与 awaitEvents 中的顺序相反，
+                    // 保证消费者要么在挂起前看到这条事件，要么被这里唤醒
+                    sequences.set(index, position + 1);
+                    Thread consumer = waitingConsumer;
+                    if (consumer != null) {
+                        LockSupport.unpark(consumer);
+                    }
+                    return true;
+                }
+            } else if (sequence < position) {
+                // 消费者还没有读完这一圈
+                dropped.increment();
+                return false;
+            }
+            // sequence > position：其他生产者已经抢到该位置，重试
+        }
+    }
+
+    /**
+     * 消费最多 maxEvents 条已发布的事件，只能由单个消费者线程调用。
+     *
+     * @return 实际消费的条数
+     */
+    public int drain(SlotConsumer consumer, int maxEvents) {
+        int drained = 0;
+        while (drained < maxEvents) {
+            int index = (int) (readPosition & mask);
+            if (sequences.get(index) != readPosition + 1) {
+                break;  // 还没有发布（或生产者正在写入）
+            }
+            Slot slot = slots[index];
+            consumer.accept(slot.timestampMillis, slot.type, slot.userId, slot.clientIp, slot.detail);
+            slot.clientIp = null;
+            slot.detail = null;
+            sequences.lazySet(index, readPosition + slots.length);
+            readPosition++;
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * 没有已发布的事件时挂起消费者线程，直到有事件发布、超时或线程被 unpark，只能由消费者线程调用。
+     * 可能提前返回，调用方需要在循环中重新检查。
+     */
+    public void awaitEvents(long timeoutNanos) {
+        waitingConsumer = Thread.currentThread();
+        try {
+            if (!hasPublished()) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        } finally {
+            waitingConsumer = null;
+        }
+    }
+
+    private boolean hasPublished() {
+        return sequences.get((int) (readPosition & mask)) == readPosition + 1;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
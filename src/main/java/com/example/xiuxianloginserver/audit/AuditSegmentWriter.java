@@ -0,0 +1,166 @@
+package com.example.xiuxianloginserver.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 审计段文件写入器，只能由单个线程使用。
+ * 每个段文件在创建时按固定大小映射到内存，记录只追加不修改；写不下或到达滚动时间后新建下一个段文件，
+ * 同时按数量和保留天数删除最旧的段文件。换下的映射不主动解除，由 GC 回收（段文件较大且按小时滚动，数量很少）。
+ *
+ * 段文件格式（大端）：文件头 int magic + int version，之后是连续的记录：
+ * int 长度（不含自身）、long 时间戳、byte 事件类型、long 用户 ID、short IP 字节数、IP、short 详情字节数、详情。
+ * 字节数为 -1 表示 null。长度最后写入，长度为 0 的位置即数据末尾，进程崩溃时不会留下半条记录。
+ */
+final class AuditSegmentWriter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditSegmentWriter.class);
+
+    static final int MAGIC = 0x41554454;  // "AUDT"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final String FILE_PREFIX = "audit-";
+    static final String FILE_SUFFIX = ".seg";
+
+    static final int MAX_IP_CHARS = 64;
+    static final int MAX_DETAIL_CHARS = 256;
+    // 4 + 8 + 1 + 8 + 2 + 2，加上字符串按 UTF-8 最坏情况每个字符 3 字节
+    private static final int MAX_RECORD_BYTES = 25 + 3 * (MAX_IP_CHARS + MAX_DETAIL_CHARS);
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long rollIntervalMillis;
+    private final int maxSegments;
+    private final long retentionMillis;
+
+    private MappedByteBuffer segment;
+    private long segmentOpenedAt;
+    private int segmentCounter;
+    private boolean dirty;
+
+    AuditSegmentWriter(Path directory, int segmentBytes, long rollIntervalMillis, int maxSegments, long retentionMillis)
+            throws IOException {
+        if (segmentBytes < HEADER_BYTES + MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("segment size too small: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.rollIntervalMillis = rollIntervalMillis;
+        this.maxSegments = maxSegments;
+        this.retentionMillis = retentionMillis;
+        Files.createDirectories(directory);
+    }
+
+    void append(long timestampMillis, AuditEventType type, long userId, String clientIp, String detail) throws IOException {
+        if (segment == null || segment.remaining() < MAX_RECORD_BYTES
+                || timestampMillis - segmentOpenedAt >= rollIntervalMillis) {
+            roll(timestampMillis);
+        }
+        int start = segment.position();
+        segment.position(start + 4);
+        segment.putLong(timestampMillis);
+        segment.put(type.getCode());
+        segment.putLong(userId);
+        putString(clientIp, MAX_IP_CHARS);
+        putString(detail, MAX_DETAIL_CHARS);
+        segment.putInt(start, segment.position() - start - 4);
+        dirty = true;
+    }
+
+    /**
+     * 把已写入的页刷到磁盘。
+     */
+    void flush() {
+        if (segment != null && dirty) {
+            segment.force();
+            dirty = false;
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        segment = null;
+    }
+
+    private void putString(String value, int maxChars) {
+        if (value == null) {
+            segment.putShort((short) -1);
+            return;
+        }
+        String truncated = value.length() > maxChars ? value.substring(0, maxChars) : value;
+        byte[] bytes = truncated.getBytes(StandardCharsets.UTF_8);
+        segment.putShort((short) bytes.length);
+        segment.put(bytes);
+    }
+
+    private void roll(long nowMillis) throws IOException {
+        flush();
+        Path file = directory.resolve(String.format("%s%013d-%04d%s", FILE_PREFIX, nowMillis, segmentCounter++ % 10000, FILE_SUFFIX));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 通道关闭后映射依然有效
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        segment.order(ByteOrder.BIG_ENDIAN);
+        segment.putInt(MAGIC);
+        segment.putInt(VERSION);
+        segmentOpenedAt = nowMillis;
+        logger.info("新建审计段文件：{}", file.getFileName());
+        applyRetention(nowMillis, file);
+    }
+
+    private void applyRetention(long nowMillis, Path current) {
+        try {
+            List<Path> segments = listSegments(directory);
+            int excess = segments.size() - maxSegments;
+            for (Path file : segments) {
+                if (file.equals(current)) {
+                    continue;
+                }
+                boolean expired = retentionMillis > 0
+                        && nowMillis - Files.getLastModifiedTime(file).toMillis() > retentionMillis;
+                if (excess > 0 || expired) {
+                    Files.deleteIfExists(file);
+                    excess--;
+                    logger.info("已删除过期审计段文件：{}", file.getFileName());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("清理审计段文件失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按创建顺序（文件名）列出目录下的段文件。
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+                    })
+                    .toList());
+            segments.sort(Comparator.comparing(path -> path.getFileName().toString()));
+            return segments;
+        }
+    }
+}
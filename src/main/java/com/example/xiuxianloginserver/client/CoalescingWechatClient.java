@@ -0,0 +1,110 @@
+package com.example.xiuxianloginserver.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 微信客户端的请求合并装饰器。
+ * 客户端连点时同一个授权码会被并发提交多次，而微信授权码只能使用一次：
+ * 同一授权码的并发请求共享同一次出站调用。调用结束（成功或失败）后立即移除，不保留结果，
+ * 之后再提交同一授权码会照常交给微信拒绝，不能用已用过的授权码重放登录。
+ * 换取到的访问令牌按 openid 缓存到其过期前，获取用户资料时同样按 openid 合并并发请求。
+ */
+public class CoalescingWechatClient implements WechatClient {
+
+    // 访问令牌提前这么久视为过期，避免临界时刻拿到刚失效的令牌
+    private static final long ACCESS_TOKEN_SAFETY_MARGIN_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final WechatClient delegate;
+    // 只保存进行中的调用，大小受并发请求数限制
+    private final ConcurrentMap<String, CompletableFuture<WechatSession>> sessionsByCode = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<WechatProfile>> profilesByOpenId = new ConcurrentHashMap<>();
+    private final Cache<String, WechatSession> accessTokensByOpenId;
+
+    public CoalescingWechatClient(WechatClient delegate, long maxEntries) {
+        this.delegate = delegate;
+        this.accessTokensByOpenId = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, WechatSession>() {
+                    @Override
+                    public long expireAfterCreate(String openId, WechatSession session, long currentTime) {
+                        return Math.max(0L, TimeUnit.SECONDS.toNanos(session.expiresInSeconds()) - ACCESS_TOKEN_SAFETY_MARGIN_NANOS);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String openId, WechatSession session, long currentTime, long currentDuration) {
+                        return expireAfterCreate(openId, session, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String openId, WechatSession session, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public WechatSession exchangeCode(String code) {
+        WechatSession session = singleFlight(sessionsByCode, code, () -> delegate.exchangeCode(code));
+        if (session.openId() != null && session.accessToken() != null) {
+            accessTokensByOpenId.put(session.openId(), session);
+        }
+        return session;
+    }
+
+    @Override
+    public WechatProfile fetchProfile(String accessToken, String openId) {
+        if (openId == null) {
+            return delegate.fetchProfile(accessToken, null);
+        }
+        // 优先使用缓存中尚未过期的访问令牌
+        WechatSession cached = accessTokensByOpenId.getIfPresent(openId);
+        String token = cached != null ? cached.accessToken() : accessToken;
+        return singleFlight(profilesByOpenId, openId, () -> delegate.fetchProfile(token, openId));
+    }
+
+    /**
+     * 当前线程抢到键时由自己发起调用，其他并发请求等待同一个结果；调用结束后移除，成功和失败的结果都不保留。
+     * 键为空时无法合并，直接调用。
+     */
+    private static <T> T singleFlight(ConcurrentMap<String, CompletableFuture<T>> inFlight, String key, Call<T> call) {
+        if (key == null) {
+            return call.execute();
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<T> existing = inFlight.putIfAbsent(key, future);
+        if (existing == null) {
+            // 先移除再完成，等待者醒来后的新请求不会再拿到这次的结果
+            try {
+                T result = call.execute();
+                inFlight.remove(key, future);
+                future.complete(result);
+            } catch (RuntimeException | Error e) {
+                inFlight.remove(key, future);
+                future.completeExceptionally(e);
+            }
+            existing = future;
+        }
+        try {
+            return existing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call<T> {
+        T execute();
+    }
+}
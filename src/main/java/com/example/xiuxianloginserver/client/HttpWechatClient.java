@@ -0,0 +1,83 @@
+package com.example.xiuxianloginserver.client;
+
+import com.example.xiuxianloginserver.exception.ServiceBusyException;
+import com.example.xiuxianloginserver.exception.WechatAuthException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+
+/**
+ * 基于 RestClient 的微信开放平台客户端。
+ * 连接和读取超时由传入的 RestClient 控制，超时、网络错误或微信返回 5xx 时抛出 ServiceBusyException，
+ * 让客户端稍后重试，而不是长时间占用请求线程。
+ */
+public class HttpWechatClient implements WechatClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpWechatClient.class);
+
+    private final RestClient restClient;
+    private final ObjectMapper objectMapper;
+    private final String appId;
+    private final String appSecret;
+    private final long retryAfterSeconds;
+
+    public HttpWechatClient(RestClient restClient, ObjectMapper objectMapper, String appId, String appSecret,
+                            long retryAfterSeconds) {
+        this.restClient = restClient;
+        this.objectMapper = objectMapper;
+        this.appId = appId;
+        this.appSecret = appSecret;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public WechatSession exchangeCode(String code) {
+        JsonNode body = get("/sns/oauth2/access_token?appid={appid}&secret={secret}&code={code}&grant_type=authorization_code",
+                appId, appSecret, code);
+        return new WechatSession(
+                body.path("openid").asText(null),
+                body.path("unionid").asText(null),
+                body.path("access_token").asText(null),
+                body.path("expires_in").asLong(0));
+    }
+
+    @Override
+    public WechatProfile fetchProfile(String accessToken, String openId) {
+        JsonNode body = get("/sns/userinfo?access_token={token}&openid={openid}", accessToken, openId);
+        return new WechatProfile(
+                body.path("openid").asText(openId),
+                body.path("unionid").asText(null),
+                body.path("nickname").asText(null));
+    }
+
+    private JsonNode get(String uri, Object... variables) {
+        String response;
+        try {
+            // 微信接口的 Content-Type 不一定是 application/json，统一按字符串读取后再解析
+            response = restClient.get().uri(uri, variables).retrieve().body(String.class);
+        } catch (RestClientException e) {
+            logger.warn("调用微信接口失败: {}", e.getMessage());
+            throw new ServiceBusyException("微信服务暂不可用，请稍后重试", retryAfterSeconds);
+        }
+
+        JsonNode body;
+        try {
+            body = objectMapper.readTree(response == null ? "{}" : response);
+        } catch (IOException e) {
+            logger.warn("无法解析微信接口响应: {}", e.getMessage());
+            throw new ServiceBusyException("微信服务暂不可用，请稍后重试", retryAfterSeconds);
+        }
+
+        int errorCode = body.path("errcode").asInt(0);
+        if (errorCode != 0) {
+            logger.debug("微信接口返回错误: {} {}", errorCode, body.path("errmsg").asText());
+            throw new WechatAuthException("微信授权失败: " + body.path("errmsg").asText(), errorCode);
+        }
+        return body;
+    }
+}
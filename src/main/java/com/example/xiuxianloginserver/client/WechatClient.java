@@ -0,0 +1,18 @@
+package com.example.xiuxianloginserver.client;
+
+/**
+ * 微信开放平台接口客户端：用授权码换取会话，以及获取用户资料。
+ * 实现类负责超时控制；授权码无效时抛出 WechatAuthException，微信服务不可用时抛出 ServiceBusyException。
+ */
+public interface WechatClient {
+
+    /**
+     * 用客户端提交的授权码换取访问令牌、openid 和 unionid。
+     */
+    WechatSession exchangeCode(String code);
+
+    /**
+     * 获取用户资料，只在首次登录创建账号时调用。
+     */
+    WechatProfile fetchProfile(String accessToken, String openId);
+}
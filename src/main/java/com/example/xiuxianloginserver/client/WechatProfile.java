@@ -0,0 +1,7 @@
+package com.example.xiuxianloginserver.client;
+
+/**
+ * 微信用户资料，只保留创建账号需要的字段。
+ */
+public record WechatProfile(String openId, String unionId, String nickname) {
+}
@@ -0,0 +1,14 @@
+package com.example.xiuxianloginserver.client;
+
+/**
+ * 授权码换取的微信会话。未绑定开放平台时 unionId 可能为空。
+ */
+public record WechatSession(String openId, String unionId, String accessToken, long expiresInSeconds) {
+
+    /**
+     * 用作 platformGlobalId 的跨应用唯一标识：优先 unionid，没有时退回 openid。
+     */
+    public String globalId() {
+        return unionId != null && !unionId.isEmpty() ? unionId : openId;
+    }
+}
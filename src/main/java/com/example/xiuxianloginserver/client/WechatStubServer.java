@@ -0,0 +1,163 @@
+package com.example.xiuxianloginserver.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地微信开放平台模拟服务，用于离线开发、测试和压测，只监听回环地址。
+ * 授权码中第一个 '.' 之前的部分作为用户标识：同一标识的不同授权码（如 alice.1、alice.2）对应同一个微信用户，
+ * openid/unionid 分别为 stub-openid-标识、stub-unionid-标识。
+ * 与真实接口一样，每个授权码只能使用一次，重复使用返回 40163；以 invalid 开头的授权码返回 40029。
+ * 可以设置每次响应前的模拟延迟，并统计各接口的调用次数，用于验证出站调用次数。
+ */
+public class WechatStubServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WechatStubServer.class);
+
+    // 已使用的授权码超过该数量时整体清空，避免长时间压测占用过多内存
+    private static final int MAX_TRACKED_CODES = 1_000_000;
+
+    private final int requestedPort;
+    private final long latencyMillis;
+    private final Set<String> usedCodes = ConcurrentHashMap.newKeySet();
+    private final AtomicLong accessTokenCalls = new AtomicLong();
+    private final AtomicLong userInfoCalls = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public WechatStubServer(int port) {
+        this(port, 0L);
+    }
+
+    public WechatStubServer(int port, long latencyMillis) {
+        this.requestedPort = port;
+        this.latencyMillis = latencyMillis;
+    }
+
+    public synchronized void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), requestedPort), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/sns/oauth2/access_token", this::handleAccessToken);
+        server.createContext("/sns/userinfo", this::handleUserInfo);
+        server.start();
+        logger.warn("微信模拟服务已启动：{}，仅用于开发和测试环境", getBaseUrl());
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.close();
+            server = null;
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public long getAccessTokenCalls() {
+        return accessTokenCalls.get();
+    }
+
+    public long getUserInfoCalls() {
+        return userInfoCalls.get();
+    }
+
+    private void handleAccessToken(HttpExchange exchange) throws IOException {
+        accessTokenCalls.incrementAndGet();
+        simulateLatency();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String code = query.get("code");
+        if (code == null || code.isEmpty() || code.startsWith("invalid")) {
+            respond(exchange, "{\"errcode\":40029,\"errmsg\":\"invalid code\"}");
+            return;
+        }
+        if (usedCodes.size() >= MAX_TRACKED_CODES) {
+            usedCodes.clear();
+        }
+        if (!usedCodes.add(code)) {
+            respond(exchange, "{\"errcode\":40163,\"errmsg\":\"code been used\"}");
+            return;
+        }
+        String user = userKey(code);
+        respond(exchange, "{\"access_token\":\"stub-at-" + UUID.randomUUID() + "\",\"expires_in\":7200,"
+                + "\"refresh_token\":\"stub-rt-" + UUID.randomUUID() + "\",\"openid\":\"stub-openid-" + user + "\","
+                + "\"scope\":\"snsapi_userinfo\",\"unionid\":\"stub-unionid-" + user + "\"}");
+    }
+
+    private void handleUserInfo(HttpExchange exchange) throws IOException {
+        userInfoCalls.incrementAndGet();
+        simulateLatency();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String accessToken = query.get("access_token");
+        String openId = query.get("openid");
+        if (accessToken == null || !accessToken.startsWith("stub-at-") || openId == null || !openId.startsWith("stub-openid-")) {
+            respond(exchange, "{\"errcode\":40001,\"errmsg\":\"invalid credential\"}");
+            return;
+        }
+        String user = openId.substring("stub-openid-".length());
+        respond(exchange, "{\"openid\":\"" + openId + "\",\"nickname\":\"微信玩家" + user + "\","
+                + "\"unionid\":\"stub-unionid-" + user + "\"}");
+    }
+
+    // 请求在虚拟线程上处理，休眠不会占用平台线程
+    private void simulateLatency() {
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // 用户标识只保留字母、数字、下划线和连字符，避免拼接出非法 JSON
+    private static String userKey(String code) {
+        int dot = code.indexOf('.');
+        String key = dot > 0 ? code.substring(0, dot) : code;
+        return key.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        // 与真实接口一致，Content-Type 为 text/plain
+        exchange.getResponseHeaders().set("Content-Type", "text/plain;charset=UTF-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -26,6 +26,9 @@ public class ApiResponseAdvice implements ResponseBodyAdvice<Object> {
         if (packageName.startsWith("org.springdoc")) {
             return false;  // 跳过 OpenAPI 文档的响应封装
         }
+        if (packageName.startsWith("org.springframework.boot.actuate")) {
+            return false;  // 跳过监控端点，Prometheus 需要原始的文本格式
+        }
         // 确保不重复封装已经是 ApiResponse 类型的响应
         return !CustomApiResponse.class.isAssignableFrom(returnType.getParameterType());
     }
@@ -43,15 +46,15 @@ public class ApiResponseAdvice implements ResponseBodyAdvice<Object> {
 
         // 如果响应体已经是 ApiResponse 类型，直接返回
         if (body instanceof CustomApiResponse) {
-            logger.info("Returning existing ApiResponse without modification: {}", body);
+            logger.debug("Returning existing ApiResponse without modification");
             return body;
         }
         if (body == null) {
             body = new Object();  // 确保响应体不为 null
         }
         // 封装为 ApiResponse 并记录日志
-        CustomApiResponse<Object> apiResponse = new CustomApiResponse<Object>(HttpStatus.OK.value(), "Success", body,request.getURI().getPath());
-        logger.info("Wrapping response into ApiResponse: {}", apiResponse);
+        CustomApiResponse<Object> apiResponse = new CustomApiResponse<Object>(HttpStatus.OK.value(), "Success", body, path);
+        logger.debug("Wrapping response of {} into ApiResponse", path);
 
         return apiResponse;
     }
@@ -0,0 +1,48 @@
+package com.example.xiuxianloginserver.common;
+
+import com.example.xiuxianloginserver.util.CustomApiResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+
+import java.io.IOException;
+import java.time.ZoneId;
+
+/**
+ * CustomApiResponse 的显式序列化器，按固定顺序逐个写字段，不经过反射和 BeanSerializer。
+ * JSON 输出与原来保持一致；CBOR 输出面向游戏客户端做了精简：
+ * 时间戳写成毫秒数，省略请求路径和为 null 的 data。
+ */
+public class CustomApiResponseSerializer extends StdSerializer<CustomApiResponse<?>> {
+
+    @SuppressWarnings("unchecked")
+    public CustomApiResponseSerializer() {
+        super((Class<CustomApiResponse<?>>) (Class<?>) CustomApiResponse.class);
+    }
+
+    @Override
+    public void serialize(CustomApiResponse<?> value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        boolean compact = gen instanceof CBORGenerator;
+        gen.writeStartObject(value);
+        if (compact) {
+            if (value.getTimestamp() != null) {
+                gen.writeNumberField("timestamp",
+                        value.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+        } else {
+            // 交给全局配置的 JavaTimeModule，保持原有的日期格式
+            provider.defaultSerializeField("timestamp", value.getTimestamp(), gen);
+        }
+        gen.writeNumberField("status", value.getStatus());
+        gen.writeStringField("message", value.getMessage());
+        if (!compact || value.getData() != null) {
+            gen.writeFieldName("data");
+            provider.defaultSerializeValue(value.getData(), gen);
+        }
+        if (!compact) {
+            gen.writeStringField("path", value.getPath());
+        }
+        gen.writeEndObject();
+    }
+}
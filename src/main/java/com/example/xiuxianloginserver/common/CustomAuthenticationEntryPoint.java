@@ -1,101 +1,113 @@
 package com.example.xiuxianloginserver.common;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.example.xiuxianloginserver.exception.AuthErrorCode;
+import com.example.xiuxianloginserver.exception.JwtAuthenticationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
 
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.PrintWriter;
 
+/**
+ * 未认证请求的统一 401 响应。
+ * 令牌过期潮或攻击时这里会被大量调用，因此按错误码直接写出预编码的响应体，
+ * 只对请求路径做 JSON 转义后拼接，不创建 ObjectMapper、响应对象或中间字符串。
+ */
 @Component
 public class CustomAuthenticationEntryPoint implements AuthenticationEntryPoint {
     private static final Logger logger = LoggerFactory.getLogger(CustomAuthenticationEntryPoint.class);
 
+    private static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
     @Override
     public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException)
             throws IOException {
+        // 非 JWT 的认证异常（例如未携带令牌访问受保护接口）按无效令牌处理
+        AuthErrorCode errorCode = authException instanceof JwtAuthenticationException jwtException
+                ? jwtException.getErrorCode()
+                : AuthErrorCode.INVALID_TOKEN;
+        logger.debug("Authentication failed: {}", errorCode);
 
-        // 增加日志记录来捕捉异常信息
-        logger.error("Authentication exception: {}", authException.getMessage());
+        String path = request.getRequestURI();
+        byte[] prefix = errorCode.getBodyPrefix();
+        byte[] suffix = errorCode.getBodySuffix();
 
-        // 设置响应的状态码和内容类型
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        response.setContentType("application/json");
-        response.setCharacterEncoding("UTF-8");
-
-        // 初始化 ObjectMapper 并配置时间模块
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-
-        // 构建错误信息
-        String errorMessage;
-        if (authException.getMessage().contains("Token has expired")) {
-            logger.warn("Token has expired");
-            errorMessage = "Token has expired";
-        } else if (authException.getMessage().contains("Invalid JWT Signature")) {
-            logger.warn("Invalid JWT Signature");
-            errorMessage = "Invalid JWT Signature";
-        } else {
-            logger.warn("Invalid JWT Token");
-            errorMessage = "Invalid JWT Token";
-        }
-
-        // 创建响应对象
-        ApiResponse apiResponse = new ApiResponse(
-                "UNAUTHORIZED",
-                errorMessage,
-                request.getRequestURI()
-        );
-
-        // 将响应对象转换为 JSON 并写入响应体
-        try (PrintWriter writer = response.getWriter()) {
-            writer.write(mapper.writeValueAsString(apiResponse));
-            writer.flush();
-        }
+        response.setContentType(CONTENT_TYPE);
+        response.setContentLength(prefix.length + escapedLength(path) + suffix.length);
+
+        ServletOutputStream out = response.getOutputStream();
+        out.write(prefix);
+        writeEscaped(out, path);
+        out.write(suffix);
+        out.flush();
     }
 
-    // 定义 ApiResponse 类来封装响应信息
-    public static class ApiResponse {
-        private String status;
-        private String message;
-        private String path;
-
-        public ApiResponse(String status, String message, String path) {
-            this.status = status;
-            this.message = message;
-            this.path = path;
-        }
-
-        public String getStatus() {
-            return status;
-        }
-
-        public String getMessage() {
-            return message;
-        }
-
-        public String getPath() {
-            return path;
-        }
-
-        public void setStatus(String status) {
-            this.status = status;
-        }
-
-        public void setMessage(String message) {
-            this.message = message;
+    // 按 JSON 字符串规则转义并以 UTF-8 写出，不分配中间数组
+    private static void writeEscaped(ServletOutputStream out, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write('\\');
+                out.write('u');
+                out.write('0');
+                out.write('0');
+                out.write(HEX[c >> 4]);
+                out.write(HEX[c & 0xF]);
+            } else if (c < 0x80) {
+                out.write(c);
+            } else if (c < 0x800) {
+                out.write(0xC0 | (c >> 6));
+                out.write(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out.write(0xF0 | (codePoint >> 18));
+                out.write(0x80 | ((codePoint >> 12) & 0x3F));
+                out.write(0x80 | ((codePoint >> 6) & 0x3F));
+                out.write(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                out.write('?');  // 不成对的代理字符
+            } else {
+                out.write(0xE0 | (c >> 12));
+                out.write(0x80 | ((c >> 6) & 0x3F));
+                out.write(0x80 | (c & 0x3F));
+            }
         }
+    }
 
-        public void setPath(String path) {
-            this.path = path;
+    // 与 writeEscaped 写出的字节数保持一致
+    private static int escapedLength(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                length += 2;
+            } else if (c < 0x20) {
+                length += 6;
+            } else if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
         }
+        return length;
     }
 }
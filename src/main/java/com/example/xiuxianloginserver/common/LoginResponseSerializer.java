@@ -0,0 +1,36 @@
+package com.example.xiuxianloginserver.common;
+
+import com.example.xiuxianloginserver.dto.LoginResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * 登录响应的显式序列化器，登录是调用最频繁的接口之一，避免逐字段反射。
+ */
+public class LoginResponseSerializer extends StdSerializer<LoginResponse> {
+
+    public LoginResponseSerializer() {
+        super(LoginResponse.class);
+    }
+
+    @Override
+    public void serialize(LoginResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(value);
+        gen.writeFieldName("platformUserId");
+        if (value.getPlatformUserId() != null) {
+            gen.writeNumber(value.getPlatformUserId());
+        } else {
+            gen.writeNull();
+        }
+        gen.writeStringField("userName", value.getUserName());
+        gen.writeStringField("nickName", value.getNickName());
+        gen.writeStringField("authType", value.getAuthType());
+        gen.writeStringField("accessToken", value.getAccessToken());
+        gen.writeStringField("refreshToken", value.getRefreshToken());
+        gen.writeNumberField("expiresIn", value.getExpiresIn());
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.xiuxianloginserver.common;
+
+import com.example.xiuxianloginserver.dto.TokenPairResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * 刷新令牌响应的显式序列化器，刷新接口调用频繁，避免逐字段反射。
+ */
+public class TokenPairResponseSerializer extends StdSerializer<TokenPairResponse> {
+
+    public TokenPairResponseSerializer() {
+        super(TokenPairResponse.class);
+    }
+
+    @Override
+    public void serialize(TokenPairResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(value);
+        gen.writeStringField("accessToken", value.getAccessToken());
+        gen.writeStringField("refreshToken", value.getRefreshToken());
+        gen.writeNumberField("expiresIn", value.getExpiresIn());
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.xiuxianloginserver.config;
+
+import com.example.xiuxianloginserver.datasource.ReadWriteRoutingDataSource;
+import com.example.xiuxianloginserver.datasource.ReadYourWritesTracker;
+import com.example.xiuxianloginserver.datasource.ReplicaHealthMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * 数据源配置。默认只有 spring.datasource 一个主库，由 Spring Boot 自动创建；
+ * 启用 auth.datasource.replica.enabled 后改为主库、从库两个连接池，外层是读写分离数据源：
+ * 只读事务（UserRepository 的查询、用户详情加载）走从库，其余走主库。
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${auth.datasource.replica.enabled:false}") boolean replicaEnabled,
+            @Value("${auth.datasource.replica.read-your-writes-ms:5000}") long windowMillis,
+            @Value("${auth.datasource.replica.read-your-writes-max-entries:100000}") long maxEntries) {
+        return new ReadYourWritesTracker(replicaEnabled, windowMillis, maxEntries);
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "auth.datasource.replica.enabled", havingValue = "true")
+    static class ReplicaRoutingConfiguration {
+
+        @Bean
+        @ConfigurationProperties("spring.datasource.hikari")
+        public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+            HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            dataSource.setPoolName("primary");
+            return dataSource;
+        }
+
+        @Bean
+        @ConfigurationProperties("auth.datasource.replica.hikari")
+        public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                                  @Value("${auth.datasource.replica.url}") String url,
+                                                  @Value("${auth.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                                  @Value("${auth.datasource.replica.password:${spring.datasource.password:}}") String password) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl(url);
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setDriverClassName(properties.determineDriverClassName());
+            dataSource.setPoolName("replica");
+            // 从库连接只读，误路由的写入会直接报错而不是写到从库上
+            dataSource.setReadOnly(true);
+            return dataSource;
+        }
+
+        // 应用就绪后由 ReplicaHealthMonitor 自己开始检查，见其说明
+        @Bean(destroyMethod = "stop")
+        public ReplicaHealthMonitor replicaHealthMonitor(
+                @Qualifier("primaryDataSource") DataSource primaryDataSource,
+                @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                @Value("${auth.datasource.replica.heartbeat-interval-ms:1000}") long heartbeatIntervalMillis,
+                @Value("${auth.datasource.replica.max-lag-ms:3000}") long maxLagMillis) {
+            return new ReplicaHealthMonitor(new JdbcTemplate(primaryDataSource), new JdbcTemplate(replicaDataSource),
+                    heartbeatIntervalMillis, maxLagMillis, System::currentTimeMillis);
+        }
+
+        /**
+         * JPA、JdbcTemplate 等使用的数据源。LazyConnectionDataSourceProxy 把真正获取连接推迟到第一条语句，
+         * 这时事务的只读标记已经绑定到线程上，读写分离数据源才能据此选择连接池。
+         */
+        @Bean
+        @Primary
+        public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                     @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                     ReplicaHealthMonitor replicaHealthMonitor) {
+            return new LazyConnectionDataSourceProxy(
+                    new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, replicaHealthMonitor));
+        }
+
+        @Bean
+        public MeterBinder replicaMetrics(ReplicaHealthMonitor replicaHealthMonitor) {
+            return registry -> {
+                Gauge.builder("auth.datasource.replica.healthy", replicaHealthMonitor, monitor -> monitor.isHealthy() ? 1 : 0)
+                        .description("从库是否可用于只读请求（1 可用，0 已回退到主库）")
+                        .register(registry);
+                Gauge.builder("auth.datasource.replica.lag", replicaHealthMonitor, ReplicaHealthMonitor::getLagMillis)
+                        .description("最近一次测得的从库复制延迟（毫秒），不可用时为 -1")
+                        .baseUnit("milliseconds")
+                        .register(registry);
+            };
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.xiuxianloginserver.config;
 
 import com.example.xiuxianloginserver.exception.AuthenticationException;
+import com.example.xiuxianloginserver.exception.CooldownException;
 import com.example.xiuxianloginserver.exception.ResourceNotFoundException;
+import com.example.xiuxianloginserver.exception.ServiceBusyException;
 import com.example.xiuxianloginserver.util.CustomApiResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -35,6 +38,30 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.UNAUTHORIZED, ex.getMessage(), request);
     }
 
+    /**
+     * 服务繁忙（如密码哈希队列已满），返回 503 并通过 Retry-After 告知客户端重试时间。
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<CustomApiResponse<Object>> handleServiceBusyException(ServiceBusyException ex, HttpServletRequest request) {
+        logger.warn("服务繁忙: {}", ex.getMessage());
+        CustomApiResponse<Object> response = new CustomApiResponse<>(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage(), null, request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
+
+    /**
+     * 请求过于频繁（如登录限流），返回 429 并通过 Retry-After 告知客户端重试时间。
+     */
+    @ExceptionHandler(CooldownException.class)
+    public ResponseEntity<CustomApiResponse<Object>> handleCooldownException(CooldownException ex, HttpServletRequest request) {
+        logger.warn("请求过于频繁: {}", ex.getMessage());
+        CustomApiResponse<Object> response = new CustomApiResponse<>(HttpStatus.TOO_MANY_REQUESTS.value(), ex.getMessage(), null, request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
+
     /**
      * 通用异常处理。
      */
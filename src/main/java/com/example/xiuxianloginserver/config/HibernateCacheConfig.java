@@ -0,0 +1,38 @@
+package com.example.xiuxianloginserver.config;
+
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hibernate 二级缓存使用的 JCache CacheManager，区域配置见 ehcache.xml。
+ * 通过 hibernate.javax.cache.uri 指定配置时，同一 JVM 中的所有 EntityManagerFactory 共用一个 CacheManager，
+ * 其中一个关闭时会把它一起关掉；这里每个 Spring 上下文创建自己的 CacheManager，随 EntityManagerFactory 关闭。
+ * 切片测试（@DataJpaTest）不扫描配置类，需要 @Import 本类。
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    // EhcacheCachingProvider 按 URI 复用 CacheManager，每次创建使用不同的 URI
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Bean
+    public CacheManager hibernateCacheManager() {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        XmlConfiguration configuration = new XmlConfiguration(HibernateCacheConfig.class.getResource("/ehcache.xml"));
+        return provider.getCacheManager(URI.create("urn:xiuxian:hibernate-cache:" + SEQUENCE.incrementAndGet()), configuration);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.xiuxianloginserver.config;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.system.SystemUtil;
+import com.example.xiuxianloginserver.service.WorkerIdLeaser;
+import com.example.xiuxianloginserver.util.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * ID 生成器配置，所有需要生成平台用户 ID 的地方共用同一个雪花 ID 生成器。
+ * 多节点部署时机器 ID 由 WorkerIdLeaser 从租约表中租用；关闭租约时使用固定的 auth.id.worker-id（仅限单节点）。
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    @Bean
+    public SnowflakeIdGenerator idGenerator(@Value("${auth.id.block-size:1}") int blockSize,
+                                            @Value("${auth.id.lease.enabled:true}") boolean leaseEnabled,
+                                            @Value("${auth.id.worker-id:1}") int staticWorkerId) {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(blockSize);
+        if (!leaseEnabled) {
+            generator.assignWorker(staticWorkerId, Long.MAX_VALUE);
+        }
+        return generator;
+    }
+
+    // 租约表由实体 WorkerIdLeaseModel 定义，等 EntityManagerFactory 按 ddl-auto 建好表后再租用
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "auth.id.lease.enabled", havingValue = "true", matchIfMissing = true)
+    @DependsOn("entityManagerFactory")
+    public WorkerIdLeaser workerIdLeaser(JdbcTemplate jdbcTemplate,
+                                         SnowflakeIdGenerator idGenerator,
+                                         @Value("${auth.id.lease.ttl-ms:30000}") long leaseTtlMillis,
+                                         @Value("${auth.id.lease.renew-interval-ms:10000}") long renewIntervalMillis,
+                                         @Value("${auth.id.lease.clock-skew-ms:2000}") long clockSkewMillis) {
+        // 节点标识：主机名 + 进程号 + 随机串，同一主机上的多个实例也能区分
+        String owner = SystemUtil.getHostInfo().getName() + ":" + ProcessHandle.current().pid() + ":" + IdUtil.fastSimpleUUID().substring(0, 8);
+        return new WorkerIdLeaser(jdbcTemplate, idGenerator, owner,
+                leaseTtlMillis, renewIntervalMillis, clockSkewMillis, System::currentTimeMillis);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.xiuxianloginserver.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JWT 密钥环配置。
+ * keys 以 kid 为键、Base64 编码的 HMAC 密钥为值；轮换密钥时新旧密钥可以同时存在，
+ * 新令牌始终使用 activeKid 对应的密钥签名。
+ */
+@Component
+@ConfigurationProperties(prefix = "jwt")
+public class JwtProperties {
+
+    private String activeKid;
+
+    private Map<String, String> keys = new LinkedHashMap<>();
+
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    public void setActiveKid(String activeKid) {
+        this.activeKid = activeKid;
+    }
+
+    public Map<String, String> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(Map<String, String> keys) {
+        this.keys = keys;
+    }
+}
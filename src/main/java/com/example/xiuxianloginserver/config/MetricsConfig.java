@@ -0,0 +1,25 @@
+package com.example.xiuxianloginserver.config;
+
+import com.example.xiuxianloginserver.audit.AuditLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 把已有组件内部的计数器注册为监控指标。
+ * 接口、JWT、BCrypt 和用户查询的计时器在各自的类中注册；Hikari 连接池指标由 Spring Boot 自动注册。
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 审计日志环形缓冲区满时丢弃的事件数，持续增长说明写入线程跟不上。
+     */
+    @Bean
+    public MeterBinder auditLogMetrics(AuditLog auditLog) {
+        return registry -> FunctionCounter.builder("auth.audit.dropped", auditLog, AuditLog::getDroppedCount)
+                .description("审计日志缓冲区满时丢弃的事件数")
+                .register(registry);
+    }
+}
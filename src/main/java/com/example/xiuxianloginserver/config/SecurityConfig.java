@@ -10,6 +10,7 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -66,6 +67,8 @@ public class SecurityConfig {
                         .requestMatchers("/swagger-ui.html", "/swagger-ui/**",
                                 "/v3/api-docs/**", "/swagger-resources/**",
                                 "/webjars/**", "/api/auth/**","/login").permitAll()
+                        // 健康检查和 Prometheus 抓取端点
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         // 对其他所有请求要求认证
                         .anyRequest().authenticated()
                 )
@@ -74,9 +77,9 @@ public class SecurityConfig {
                         exceptionHandling.authenticationEntryPoint(customAuthenticationEntryPoint))
                 // 将自定义的 JWT 认证过滤器添加到 Spring Security 的过滤链中，放在 UsernamePasswordAuthenticationFilter 之前
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
-                // 配置 session 管理，限制每个用户只能有一个会话
+                // 无状态认证，不创建 HttpSession；单设备登录由令牌中的会话代号保证（见 SessionGenerationRegistry）
                 .sessionManagement(sessionManagement ->
-                        sessionManagement.maximumSessions(1));
+                        sessionManagement.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
 
         logger.info("Security Filter Chain 配置完成");
         return http.build();
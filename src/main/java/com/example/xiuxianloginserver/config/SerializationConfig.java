@@ -0,0 +1,54 @@
+package com.example.xiuxianloginserver.config;
+
+import com.example.xiuxianloginserver.dto.LoginResponse;
+import com.example.xiuxianloginserver.dto.TokenPairResponse;
+import com.example.xiuxianloginserver.common.CustomApiResponseSerializer;
+import com.example.xiuxianloginserver.common.LoginResponseSerializer;
+import com.example.xiuxianloginserver.common.TokenPairResponseSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * 响应序列化配置。
+ * 客户端在 Accept 头中声明 application/cbor 时返回 CBOR 编码的响应，其余情况仍返回 JSON；
+ * 两种格式共用同一套 Jackson 模块，高频的响应类型使用显式序列化器。
+ */
+@Configuration
+public class SerializationConfig {
+
+    /**
+     * 响应封装和令牌响应的显式序列化器，Spring Boot 会把 Module 类型的 Bean 注册到全局 ObjectMapper。
+     */
+    @Bean
+    public Module authResponseModule() {
+        SimpleModule module = new SimpleModule("AuthResponseModule");
+        module.addSerializer(new CustomApiResponseSerializer());
+        module.addSerializer(TokenPairResponse.class, new TokenPairResponseSerializer());
+        module.addSerializer(LoginResponse.class, new LoginResponseSerializer());
+        return module;
+    }
+
+    /**
+     * 其余 Bean 的属性访问用 LambdaMetafactory 生成的访问器代替反射。
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    /**
+     * CBOR 消息转换器，Spring Boot 会把 HttpMessageConverter 类型的 Bean 加入转换器列表并参与内容协商。
+     * Spring Boot 的 Jackson2ObjectMapperBuilder 是原型 Bean，注入的是一份新的构建器，已带上上面的模块和 spring.jackson.* 配置，
+     * 这里只替换底层工厂；Jackson2ObjectMapperBuilder.cbor() 是静态方法，会丢掉这些配置。
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
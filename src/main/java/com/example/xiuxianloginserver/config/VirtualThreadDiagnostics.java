@@ -0,0 +1,90 @@
+package com.example.xiuxianloginserver.config;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 虚拟线程运行模式的诊断信息。
+ * 启动时打印当前的线程模型和数据库连接池上限；开启虚拟线程后，请求并发不再受 Tomcat 线程数限制，
+ * Hikari 连接池大小才是访问数据库的真实并发上限。
+ * 开启 pinning 诊断后，通过 JFR 监听 jdk.VirtualThreadPinned 事件，把钉住载体线程的调用栈打印到日志。
+ */
+@Component
+public class VirtualThreadDiagnostics {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadDiagnostics.class);
+
+    private static final int STACK_DEPTH = 8;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int maxPoolSize;
+
+    @Value("${auth.virtual-threads.pinning-diagnostics.enabled:false}")
+    private boolean pinningDiagnosticsEnabled;
+
+    @Value("${auth.virtual-threads.pinning-diagnostics.threshold-ms:20}")
+    private long pinningThresholdMillis;
+
+    private RecordingStream pinningStream;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!virtualThreadsEnabled) {
+            logger.info("请求线程模型：平台线程（thread-per-request）");
+            return;
+        }
+        logger.info("请求线程模型：虚拟线程，数据库并发上限由 Hikari 连接池决定，maximum-pool-size={}", maxPoolSize);
+
+        if (pinningDiagnosticsEnabled) {
+            startPinningStream();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pinningStream != null) {
+            pinningStream.close();
+        }
+    }
+
+    private void startPinningStream() {
+        pinningStream = new RecordingStream();
+        pinningStream.enable("jdk.VirtualThreadPinned")
+                .withThreshold(Duration.ofMillis(pinningThresholdMillis))
+                .withStackTrace();
+        pinningStream.onEvent("jdk.VirtualThreadPinned", this::logPinnedEvent);
+        pinningStream.startAsync();
+        logger.info("虚拟线程 pinning 诊断已开启，阈值 {} ms", pinningThresholdMillis);
+    }
+
+    private void logPinnedEvent(RecordedEvent event) {
+        StringBuilder stack = new StringBuilder();
+        if (event.getStackTrace() != null) {
+            List<RecordedFrame> frames = event.getStackTrace().getFrames();
+            for (int i = 0; i < Math.min(STACK_DEPTH, frames.size()); i++) {
+                RecordedFrame frame = frames.get(i);
+                stack.append("\n\tat ")
+                        .append(frame.getMethod().getType().getName())
+                        .append('.')
+                        .append(frame.getMethod().getName())
+                        .append(':')
+                        .append(frame.getLineNumber());
+            }
+        }
+        logger.warn("虚拟线程被钉住 {} ms{}", event.getDuration().toMillis(), stack);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.xiuxianloginserver.config;
+
+import com.example.xiuxianloginserver.client.CoalescingWechatClient;
+import com.example.xiuxianloginserver.client.HttpWechatClient;
+import com.example.xiuxianloginserver.client.WechatClient;
+import com.example.xiuxianloginserver.client.WechatStubServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+/**
+ * 微信客户端配置。auth.wechat.stub.enabled=true 时启动本地模拟服务，客户端自动改为请求模拟服务。
+ * 出站请求使用有界的连接池，池中连接耗尽时在 pool-timeout-ms 内拿不到连接即失败，不会无限排队；
+ * 外层由 CoalescingWechatClient 合并同一授权码的并发换取请求。
+ */
+@Configuration
+public class WechatClientConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "auth.wechat.stub.enabled", havingValue = "true")
+    public WechatStubServer wechatStubServer(@Value("${auth.wechat.stub.port:0}") int port,
+                                             @Value("${auth.wechat.stub.latency-ms:0}") long latencyMillis) {
+        return new WechatStubServer(port, latencyMillis);
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient wechatHttpClient(@Value("${auth.wechat.pool.max-connections:50}") int maxConnections,
+                                                @Value("${auth.wechat.connect-timeout-ms:1000}") long connectTimeoutMillis,
+                                                @Value("${auth.wechat.read-timeout-ms:3000}") long readTimeoutMillis,
+                                                @Value("${auth.wechat.pool.timeout-ms:500}") long poolTimeoutMillis) {
+        // 只访问一个主机，单路由上限与总上限相同
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMillis))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    @Bean
+    public WechatClient wechatClient(ObjectProvider<WechatStubServer> stubServer,
+                                     CloseableHttpClient wechatHttpClient,
+                                     ObjectMapper objectMapper,
+                                     @Value("${auth.wechat.base-url:https://api.weixin.qq.com}") String baseUrl,
+                                     @Value("${auth.wechat.app-id:}") String appId,
+                                     @Value("${auth.wechat.app-secret:}") String appSecret,
+                                     @Value("${auth.wechat.retry-after-seconds:1}") long retryAfterSeconds,
+                                     @Value("${auth.wechat.coalesce.max-entries:100000}") long coalesceMaxEntries) {
+        WechatStubServer stub = stubServer.getIfAvailable();
+        RestClient restClient = RestClient.builder()
+                .baseUrl(stub != null ? stub.getBaseUrl() : baseUrl)
+                .requestFactory(new HttpComponentsClientHttpRequestFactory(wechatHttpClient))
+                .build();
+        HttpWechatClient httpClient = new HttpWechatClient(restClient, objectMapper, appId, appSecret, retryAfterSeconds);
+        return new CoalescingWechatClient(httpClient, coalesceMaxEntries);
+    }
+}
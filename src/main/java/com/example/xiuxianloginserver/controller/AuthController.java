@@ -1,12 +1,22 @@
 package com.example.xiuxianloginserver.controller;
 
+import com.example.xiuxianloginserver.dto.BulkRegistrationResult;
+import com.example.xiuxianloginserver.dto.LoginResponse;
+import com.example.xiuxianloginserver.dto.TokenPairResponse;
 import com.example.xiuxianloginserver.dto.UserLoginRequest;
 import com.example.xiuxianloginserver.dto.UserRegistrationRequest;
+import com.example.xiuxianloginserver.dto.WechatRegistrationRequest;
+import com.example.xiuxianloginserver.exception.AuthorizationException;
+import com.example.xiuxianloginserver.exception.CooldownException;
 import com.example.xiuxianloginserver.exception.InvalidLoginException;
+import com.example.xiuxianloginserver.exception.InvalidParameterException;
 import com.example.xiuxianloginserver.exception.InvalidTokenException;
+import com.example.xiuxianloginserver.exception.ServiceBusyException;
 import com.example.xiuxianloginserver.exception.UserAlreadyExistsException;
-import com.example.xiuxianloginserver.models.UserModel;
+import com.example.xiuxianloginserver.exception.UserNotFoundException;
+import com.example.xiuxianloginserver.exception.WechatAuthException;
 import com.example.xiuxianloginserver.service.AuthService;
+import com.example.xiuxianloginserver.service.BulkRegistrationService;
 import com.example.xiuxianloginserver.util.CustomApiResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -21,6 +31,7 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.io.IOException;
 import java.util.Map;
 
 @RestController
@@ -33,6 +44,9 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private BulkRegistrationService bulkRegistrationService;
+
     @Operation(summary = "账号密码注册")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "注册成功"),
@@ -43,11 +57,13 @@ public class AuthController {
     public ResponseEntity<CustomApiResponse<String>> register(@RequestBody UserRegistrationRequest request, HttpServletRequest httpRequest) {
         logger.info("用户尝试注册: {}", request.getUsername());
         try {
-            String token = authService.register(request);
+            String token = authService.register(request, httpRequest.getRemoteAddr());
             return ResponseEntity.ok(CustomApiResponse.success("注册成功", token, httpRequest.getRequestURI()));
         } catch (UserAlreadyExistsException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .body(CustomApiResponse.error(HttpStatus.CONFLICT.value(), e.getMessage(), httpRequest.getRequestURI()));
+        } catch (ServiceBusyException e) {
+            throw e;  // 交给 GlobalExceptionHandler 返回 503 和 Retry-After
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(CustomApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "服务器内部错误", httpRequest.getRequestURI()));
@@ -58,28 +74,24 @@ public class AuthController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "登录成功"),
             @ApiResponse(responseCode = "400", description = "无效的请求"),
-            @ApiResponse(responseCode = "401", description = "认证失败")
+            @ApiResponse(responseCode = "401", description = "认证失败"),
+            @ApiResponse(responseCode = "429", description = "登录尝试过于频繁")
     })
     @PostMapping("/login")
-    public ResponseEntity<CustomApiResponse<UserModel>> login(@RequestBody UserLoginRequest request, HttpServletRequest httpRequest) {
-        // 打印请求体内容
-        logger.info("用户尝试登录: 用户名 = {}, 密码 = {}", request.getUsername(), request.getPassword());
+    public ResponseEntity<CustomApiResponse<LoginResponse>> login(@RequestBody UserLoginRequest request, HttpServletRequest httpRequest) {
+        logger.info("用户尝试登录: 用户名 = {}", request.getUsername());
 
         try {
-            // 调用 authService 登录，并返回 UserModel
-            UserModel userModel = authService.login(request);
-
-            if (userModel != null) {
-                // 返回包含用户信息和 Token 的响应
-                return ResponseEntity.ok(CustomApiResponse.success("登录成功", userModel, httpRequest.getRequestURI()));
-            } else {
-                // 如果登录失败，则返回 Unauthorized
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(CustomApiResponse.error(HttpStatus.UNAUTHORIZED.value(), "用户名或密码错误", httpRequest.getRequestURI()));
-            }
+            // 调用 authService 登录，返回令牌和公开的用户资料
+            LoginResponse loginResponse = authService.login(request, httpRequest.getRemoteAddr());
+            return ResponseEntity.ok(CustomApiResponse.success("登录成功", loginResponse, httpRequest.getRequestURI()));
         } catch (InvalidLoginException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(CustomApiResponse.error(HttpStatus.UNAUTHORIZED.value(), e.getMessage(), httpRequest.getRequestURI()));
+        } catch (ServiceBusyException e) {
+            throw e;  // 交给 GlobalExceptionHandler 返回 503 和 Retry-After
+        } catch (CooldownException e) {
+            throw e;  // 交给 GlobalExceptionHandler 返回 429 和 Retry-After
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(CustomApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "服务器内部错误", httpRequest.getRequestURI()));
@@ -89,7 +101,40 @@ public class AuthController {
 
 
 
-    @Operation(summary = "刷新令牌")
+    @Operation(summary = "微信登录", description = "提交微信授权码，已绑定的账号直接登录，首次登录自动注册")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "登录成功"),
+            @ApiResponse(responseCode = "400", description = "缺少授权码"),
+            @ApiResponse(responseCode = "401", description = "授权码无效或账号已被禁用"),
+            @ApiResponse(responseCode = "429", description = "登录尝试过于频繁"),
+            @ApiResponse(responseCode = "503", description = "微信服务暂不可用")
+    })
+    @PostMapping("/wechat/login")
+    public ResponseEntity<CustomApiResponse<LoginResponse>> wechatLogin(@RequestBody WechatRegistrationRequest request,
+                                                                         HttpServletRequest httpRequest) {
+        if (request.getWechatCode() == null || request.getWechatCode().isBlank()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(CustomApiResponse.error(HttpStatus.BAD_REQUEST.value(), "缺少微信授权码", httpRequest.getRequestURI()));
+        }
+
+        try {
+            LoginResponse loginResponse = authService.wechatLogin(request.getWechatCode(), httpRequest.getRemoteAddr());
+            return ResponseEntity.ok(CustomApiResponse.success("登录成功", loginResponse, httpRequest.getRequestURI()));
+        } catch (WechatAuthException | InvalidLoginException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(CustomApiResponse.error(HttpStatus.UNAUTHORIZED.value(), e.getMessage(), httpRequest.getRequestURI()));
+        } catch (ServiceBusyException e) {
+            throw e;  // 交给 GlobalExceptionHandler 返回 503 和 Retry-After
+        } catch (CooldownException e) {
+            throw e;  // 交给 GlobalExceptionHandler 返回 429 和 Retry-After
+        } catch (Exception e) {
+            logger.error("微信登录失败", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(CustomApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "服务器内部错误", httpRequest.getRequestURI()));
+        }
+    }
+
+    @Operation(summary = "刷新令牌", description = "在 Authorization 头中以 Bearer 方式提交登录时获得的刷新令牌，返回新的访问令牌和轮换后的刷新令牌")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "令牌刷新成功"),
             @ApiResponse(responseCode = "401", description = "无效的令牌"),
@@ -113,9 +158,9 @@ public class AuthController {
         }
 
         try {
-            String newToken = authService.refreshToken(authorizationHeader);
-            return ResponseEntity.ok(CustomApiResponse.success("令牌刷新成功", newToken, httpRequest.getRequestURI()));
-        } catch (InvalidTokenException e) {
+            TokenPairResponse tokens = authService.refreshToken(authorizationHeader, httpRequest.getRemoteAddr());
+            return ResponseEntity.ok(CustomApiResponse.success("令牌刷新成功", tokens, httpRequest.getRequestURI()));
+        } catch (InvalidTokenException | UserNotFoundException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(CustomApiResponse.error(HttpStatus.UNAUTHORIZED.value(), e.getMessage(), httpRequest.getRequestURI()));
         } catch (Exception e) {
@@ -153,4 +198,60 @@ public class AuthController {
         }
     }
 
+    @Operation(summary = "批量开户（管理接口）",
+            description = "请求体为账号数组 [{\"username\": \"...\", \"password\": \"...\"}]，需要在 X-Admin-Token 头中提供管理密钥")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "处理完成，逐行返回结果"),
+            @ApiResponse(responseCode = "400", description = "请求体格式错误"),
+            @ApiResponse(responseCode = "403", description = "管理密钥无效或接口未启用")
+    })
+    @PostMapping(value = "/admin/bulk-register", consumes = "application/json")
+    public ResponseEntity<CustomApiResponse<BulkRegistrationResult>> bulkRegister(
+            @RequestHeader(name = "X-Admin-Token", required = false) String adminToken,
+            HttpServletRequest httpRequest) {
+        try {
+            bulkRegistrationService.checkAdminKey(adminToken);
+            BulkRegistrationResult result = bulkRegistrationService.provision(httpRequest.getInputStream());
+            return ResponseEntity.ok(CustomApiResponse.success("批量开户完成", result, httpRequest.getRequestURI()));
+        } catch (AuthorizationException e) {
+            logger.warn("批量开户被拒绝: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(CustomApiResponse.error(HttpStatus.FORBIDDEN.value(), e.getMessage(), httpRequest.getRequestURI()));
+        } catch (InvalidParameterException | IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(CustomApiResponse.error(HttpStatus.BAD_REQUEST.value(), "请求体格式错误", httpRequest.getRequestURI()));
+        } catch (Exception e) {
+            logger.error("批量开户失败", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(CustomApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "服务器内部错误", httpRequest.getRequestURI()));
+        }
+    }
+
+    @Operation(summary = "登出", description = "吊销当前访问令牌；如果在 X-Refresh-Token 头中提供刷新令牌，同时吊销该刷新令牌")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "登出成功"),
+            @ApiResponse(responseCode = "401", description = "无效的令牌")
+    })
+    @PostMapping("/logout")
+    public ResponseEntity<CustomApiResponse<Object>> logout(
+            @RequestHeader(name = "Authorization", required = false) String authorizationHeader,
+            @RequestHeader(name = "X-Refresh-Token", required = false) String refreshToken,
+            HttpServletRequest httpRequest) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(CustomApiResponse.error(HttpStatus.UNAUTHORIZED.value(), "无效的令牌", httpRequest.getRequestURI()));
+        }
+
+        try {
+            authService.logout(authorizationHeader.substring(7), refreshToken, httpRequest.getRemoteAddr());
+            return ResponseEntity.ok(CustomApiResponse.success("登出成功", null, httpRequest.getRequestURI()));
+        } catch (InvalidTokenException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(CustomApiResponse.error(HttpStatus.UNAUTHORIZED.value(), e.getMessage(), httpRequest.getRequestURI()));
+        } catch (Exception e) {
+            logger.error("登出失败", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(CustomApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "服务器内部错误", httpRequest.getRequestURI()));
+        }
+    }
 }
@@ -0,0 +1,78 @@
+package com.example.xiuxianloginserver.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * 读写分离数据源：只读事务的连接取自从库连接池，写事务和不在事务中的调用（例如 JdbcTemplate）取自主库。
+ * 必须包在 LazyConnectionDataSourceProxy 中使用：事务管理器开启事务时就会获取连接，此时只读标记还没有绑定到线程上，
+ * 延迟到第一条语句执行时再选择连接池才能看到只读标记。
+ * 以下情况只读事务也回到主库：从库延迟过大或不可用（见 ReplicaHealthMonitor）、从库连接获取失败、
+ * 当前线程被 {@link #onPrimary} 固定到主库（写后读窗口）。
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    // 当前线程是否被固定到主库，可嵌套
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaHealthMonitor replicaHealth;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaHealthMonitor replicaHealth) {
+        this.primary = primary;
+        this.replica = replica;
+        this.replicaHealth = replicaHealth;
+    }
+
+    /**
+     * 在当前线程上执行 query，期间的只读事务也使用主库连接。
+     */
+    public static <T> T onPrimary(Supplier<T> query) {
+        Boolean previous = PRIMARY_PINNED.get();
+        PRIMARY_PINNED.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_PINNED.remove();
+            } else {
+                PRIMARY_PINNED.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (routeToReplica()) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                // 从库不可用时本次改用主库，并在下一次健康检查成功前停止使用从库
+                replicaHealth.reportFailure(e);
+                logger.warn("获取从库连接失败，改用主库: {}", e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return routeToReplica() ? replica.getConnection(username, password) : primary.getConnection(username, password);
+    }
+
+    private boolean routeToReplica() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && PRIMARY_PINNED.get() == null
+                && replicaHealth.isHealthy();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.xiuxianloginserver.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 写后读一致性：刚写入的用户（按用户名、平台用户 ID 等键记录）在窗口期内的读取走主库，
+ * 避免注册后立即登录或校验令牌时，从库还没有复制到新用户。
+ * 窗口只在本节点内有效；读取结果为空时也会到主库再查一次，覆盖写入和读取落在不同节点上的情况。
+ * 未启用读写分离时所有方法直接执行查询。
+ */
+public class ReadYourWritesTracker {
+
+    private final boolean routingEnabled;
+    private final Cache<Object, Boolean> recentWrites;
+
+    public ReadYourWritesTracker(boolean routingEnabled, long windowMillis, long maxEntries) {
+        this.routingEnabled = routingEnabled;
+        this.recentWrites = routingEnabled && windowMillis > 0
+                ? Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(windowMillis))
+                .build()
+                : null;
+    }
+
+    /**
+     * 记录刚写入的键，窗口期内对这些键的读取走主库。
+     */
+    public void markWritten(Object... keys) {
+        if (recentWrites == null) {
+            return;
+        }
+        for (Object key : keys) {
+            if (key != null) {
+                recentWrites.put(key, Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * 按键执行读取：键在写后读窗口内时直接读主库；否则先按路由规则读取，结果为空（missing 为 true）时再读一次主库。
+     */
+    public <T> T read(Object key, Supplier<T> query, Predicate<T> missing) {
+        if (!routingEnabled) {
+            return query.get();
+        }
+        if (recentWrites != null && recentWrites.getIfPresent(key) != null) {
+            return ReadWriteRoutingDataSource.onPrimary(query);
+        }
+        T result = query.get();
+        return missing.test(result) ? ReadWriteRoutingDataSource.onPrimary(query) : result;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.xiuxianloginserver.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 从库健康检查。每个节点定期把当前时间写入主库的 replication_heartbeat 表，再从从库读回同一行，
+ * 两者之差就是从库的复制延迟（误差不超过一个检查间隔）。这种方式不依赖 SHOW REPLICA STATUS，MySQL 和 MariaDB 通用。
+ * 延迟超过 max-lag 或从库查询失败时标记为不健康，只读事务改走主库，直到下一次检查恢复正常。
+ * 启动后第一次检查成功之前视为不健康。
+ * 心跳表由实体 ReplicationHeartbeatModel 定义；读写分离数据源先于 EntityManagerFactory 创建，
+ * 因此在应用就绪（ddl-auto 已建表）后才开始检查，此前只读请求都走主库。
+ */
+public class ReplicaHealthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaHealthMonitor.class);
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long checkIntervalMillis;
+    private final long maxLagMillis;
+    private final LongSupplier clock;
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean healthy;
+    private volatile long lagMillis = -1;
+
+    public ReplicaHealthMonitor(JdbcTemplate primary, JdbcTemplate replica,
+                                long checkIntervalMillis, long maxLagMillis, LongSupplier clock) {
+        if (maxLagMillis <= checkIntervalMillis) {
+            throw new IllegalArgumentException("max replica lag must be longer than the heartbeat interval");
+        }
+        this.primary = primary;
+        this.replica = replica;
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.maxLagMillis = maxLagMillis;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        check();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /**
+     * 最近一次测得的复制延迟（毫秒），从库不可用时为 -1。
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * 请求线程获取从库连接失败时调用，立即停止使用从库。
+     */
+    public void reportFailure(Exception e) {
+        if (healthy) {
+            logger.warn("从库连接失败，只读请求改走主库: {}", e.getMessage());
+        }
+        healthy = false;
+    }
+
+    synchronized void check() {
+        long now = clock.getAsLong();
+        beat(now);
+
+        boolean nowHealthy;
+        try {
+            Long beat = replica.queryForObject("SELECT beat_millis FROM replication_heartbeat WHERE id = 1", Long.class);
+            lagMillis = beat == null ? -1 : Math.max(0L, now - beat);
+            nowHealthy = beat != null && lagMillis <= maxLagMillis;
+        } catch (DataAccessException e) {
+            // 从库宕机、网络不通，或者心跳表还没有复制过来
+            lagMillis = -1;
+            nowHealthy = false;
+            logger.debug("读取从库心跳失败: {}", e.getMessage());
+        }
+
+        if (nowHealthy != healthy) {
+            if (nowHealthy) {
+                logger.info("从库已恢复，复制延迟 {} ms，只读请求改回从库", lagMillis);
+            } else {
+                logger.warn("从库不可用或延迟过大（{} ms，上限 {} ms），只读请求改走主库", lagMillis, maxLagMillis);
+            }
+        }
+        healthy = nowHealthy;
+    }
+
+    // 写入心跳；多个节点同时写入时保留最大值
+    private void beat(long now) {
+        try {
+            int updated = primary.update("UPDATE replication_heartbeat SET beat_millis = GREATEST(beat_millis, ?) WHERE id = 1", now);
+            if (updated == 0) {
+                primary.update("INSERT INTO replication_heartbeat (id, beat_millis) VALUES (1, ?)", now);
+            }
+        } catch (DuplicateKeyException e) {
+            // 其他节点同时插入了心跳行，下一次检查时更新即可
+        } catch (DataAccessException e) {
+            logger.warn("写入主库心跳失败: {}", e.getMessage());
+        }
+    }
+}
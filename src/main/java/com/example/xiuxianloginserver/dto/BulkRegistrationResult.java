@@ -0,0 +1,133 @@
+package com.example.xiuxianloginserver.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量注册结果，包含汇总数据和每一行的处理结果
+ */
+@Schema(description = "批量注册结果")
+public class BulkRegistrationResult {
+
+    @Schema(description = "提交的账号总数", example = "1000")
+    private int total;
+
+    @Schema(description = "成功创建的账号数", example = "998")
+    private int created;
+
+    @Schema(description = "未创建的账号数（重复、参数无效或写入失败）", example = "2")
+    private int failed;
+
+    @Schema(description = "处理耗时（毫秒）", example = "1234")
+    private long elapsedMillis;
+
+    @Schema(description = "是否达到单次请求的账号数上限；为 true 时下标从 total 开始的账号未处理，需要另行提交", example = "false")
+    private boolean truncated;
+
+    @Schema(description = "每一行的处理结果，顺序与提交顺序一致")
+    private List<Row> rows = new ArrayList<>();
+
+    public void addRow(Row row) {
+        rows.add(row);
+        total++;
+        if (row.getStatus() == RowStatus.CREATED) {
+            created++;
+        } else {
+            failed++;
+        }
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    /**
+     * 单行处理状态
+     */
+    public enum RowStatus {
+        CREATED,
+        DUPLICATE,
+        INVALID,
+        FAILED
+    }
+
+    /**
+     * 单行处理结果
+     */
+    @Schema(description = "单个账号的处理结果")
+    public static class Row {
+
+        @Schema(description = "在提交数据中的下标，从 0 开始", example = "0")
+        private final int index;
+
+        @Schema(description = "用户账号", example = "bot_0001")
+        private final String username;
+
+        @Schema(description = "处理状态", example = "CREATED")
+        private final RowStatus status;
+
+        @Schema(description = "创建成功时的平台用户 ID", example = "1846213652375171072")
+        private final Long platformUserId;
+
+        @Schema(description = "失败原因", example = "用户名已存在")
+        private final String message;
+
+        public Row(int index, String username, RowStatus status, Long platformUserId, String message) {
+            this.index = index;
+            this.username = username;
+            this.status = status;
+            this.platformUserId = platformUserId;
+            this.message = message;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public RowStatus getStatus() {
+            return status;
+        }
+
+        public Long getPlatformUserId() {
+            return platformUserId;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
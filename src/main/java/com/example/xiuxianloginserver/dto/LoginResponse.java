@@ -0,0 +1,70 @@
+package com.example.xiuxianloginserver.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * 登录响应，只包含令牌和公开的用户资料
+ */
+@Schema(description = "登录结果")
+public class LoginResponse {
+
+    @Schema(description = "平台用户 ID", example = "1234567890123456789")
+    private final Long platformUserId;
+
+    @Schema(description = "用户名", example = "player1")
+    private final String userName;
+
+    @Schema(description = "昵称", example = "player1")
+    private final String nickName;
+
+    @Schema(description = "认证类型", example = "account_password")
+    private final String authType;
+
+    @Schema(description = "JWT 访问令牌", example = "eyJhbGciOiJIUzUxMiJ9...")
+    private final String accessToken;
+
+    @Schema(description = "刷新令牌", example = "q3Xv9cH1...")
+    private final String refreshToken;
+
+    @Schema(description = "访问令牌有效期（秒）", example = "36000")
+    private final long expiresIn;
+
+    public LoginResponse(Long platformUserId, String userName, String nickName, String authType,
+                         String accessToken, String refreshToken, long expiresIn) {
+        this.platformUserId = platformUserId;
+        this.userName = userName;
+        this.nickName = nickName;
+        this.authType = authType;
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+    }
+
+    public Long getPlatformUserId() {
+        return platformUserId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getNickName() {
+        return nickName;
+    }
+
+    public String getAuthType() {
+        return authType;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.xiuxianloginserver.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * 令牌刷新响应，包含新的访问令牌和轮换后的刷新令牌
+ */
+@Schema(description = "访问令牌与刷新令牌")
+public class TokenPairResponse {
+
+    @Schema(description = "JWT 访问令牌", example = "eyJhbGciOiJIUzUxMiJ9...")
+    private final String accessToken;
+
+    @Schema(description = "新的刷新令牌，旧的刷新令牌随即失效", example = "q3Xv9cH1...")
+    private final String refreshToken;
+
+    @Schema(description = "访问令牌有效期（秒）", example = "36000")
+    private final long expiresIn;
+
+    public TokenPairResponse(String accessToken, String refreshToken, long expiresIn) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.xiuxianloginserver.exception;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 认证失败的错误码。每个错误码的 401 响应体在类加载时预先编码为字节，
+ * 写响应时只需要把请求路径拼接在前缀和后缀之间，不再创建 ObjectMapper 或响应对象。
+ */
+public enum AuthErrorCode {
+
+    TOKEN_EXPIRED("Token has expired"),
+    INVALID_SIGNATURE("Invalid JWT Signature"),
+    INVALID_TOKEN("Invalid JWT Token"),
+    TOKEN_REVOKED("Token has been revoked"),
+    ACCOUNT_RESTRICTED("Account is disabled or banned"),
+    SESSION_REPLACED("Account has signed in on another device");
+
+    private final String message;
+    private final byte[] bodyPrefix;
+    private final byte[] bodySuffix;
+
+    AuthErrorCode(String message) {
+        this.message = message;
+        // 响应体：{"status":"UNAUTHORIZED","code":"...","message":"...","path":"<路径>"}
+        this.bodyPrefix = ("{\"status\":\"UNAUTHORIZED\",\"code\":\"" + name()
+                + "\",\"message\":\"" + message + "\",\"path\":\"").getBytes(StandardCharsets.UTF_8);
+        this.bodySuffix = "\"}".getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * 预编码的响应体前缀，调用方不得修改。
+     */
+    public byte[] getBodyPrefix() {
+        return bodyPrefix;
+    }
+
+    /**
+     * 预编码的响应体后缀，调用方不得修改。
+     */
+    public byte[] getBodySuffix() {
+        return bodySuffix;
+    }
+}
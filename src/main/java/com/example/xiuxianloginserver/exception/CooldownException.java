@@ -1,15 +1,27 @@
 package com.example.xiuxianloginserver.exception;
 
 /**
- * 自定义异常类，用于表示冷却时间未结束的情况。
+ * 自定义异常类，用于表示冷却时间未结束的情况，客户端应在 retryAfterSeconds 秒后重试。
  */
 public class CooldownException extends RuntimeException {
 
+    private final long retryAfterSeconds;
+
     public CooldownException(String message) {
+        this(message, 1L);
+    }
+
+    public CooldownException(String message, long retryAfterSeconds) {
         super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
     }
 
     public CooldownException(String message, Throwable cause) {
         super(message, cause);
+        this.retryAfterSeconds = 1L;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
     }
 }
@@ -4,7 +4,27 @@ import org.springframework.security.core.AuthenticationException;
 
 public class JwtAuthenticationException extends AuthenticationException {
 
+    private final AuthErrorCode errorCode;
+
+    public JwtAuthenticationException(AuthErrorCode errorCode, Throwable cause) {
+        super(errorCode.getMessage(), cause);
+        this.errorCode = errorCode;
+    }
+
     public JwtAuthenticationException(String msg, Throwable cause) {
         super(msg, cause);
+        this.errorCode = AuthErrorCode.INVALID_TOKEN;
+    }
+
+    public AuthErrorCode getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * 令牌过期、无效属于常规情况，不采集堆栈；底层原因（cause）仍保留自己的堆栈。
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
     }
 }
@@ -0,0 +1,18 @@
+package com.example.xiuxianloginserver.exception;
+
+/**
+ * 自定义异常类，用于表示服务繁忙、请求被拒绝的情况，客户端应在 retryAfterSeconds 秒后重试。
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
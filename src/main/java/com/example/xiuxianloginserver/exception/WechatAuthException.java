@@ -0,0 +1,21 @@
+package com.example.xiuxianloginserver.exception;
+
+/**
+ * 自定义异常类，用于表示微信授权失败的情况（如授权码无效、已被使用或已过期）。
+ */
+public class WechatAuthException extends RuntimeException {
+
+    private final int errorCode;
+
+    public WechatAuthException(String message, int errorCode) {
+        super(message);
+        this.errorCode = errorCode;
+    }
+
+    /**
+     * 微信接口返回的 errcode。
+     */
+    public int getErrorCode() {
+        return errorCode;
+    }
+}
@@ -1,12 +1,24 @@
 package com.example.xiuxianloginserver.filter;
 
+import com.example.xiuxianloginserver.audit.AuditEventType;
+import com.example.xiuxianloginserver.audit.AuditLog;
 import com.example.xiuxianloginserver.common.CustomAuthenticationEntryPoint;
+import com.example.xiuxianloginserver.exception.AuthErrorCode;
 import com.example.xiuxianloginserver.exception.JwtAuthenticationException;
+import com.example.xiuxianloginserver.security.TokenPrincipal;
+import com.example.xiuxianloginserver.security.VerifiedToken;
 import com.example.xiuxianloginserver.service.CustomUserDetailsService;
+import com.example.xiuxianloginserver.service.SessionGenerationRegistry;
+import com.example.xiuxianloginserver.service.TokenDenylist;
+import com.example.xiuxianloginserver.service.UserStatusTable;
 import com.example.xiuxianloginserver.util.JwtTokenUtil;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.SignatureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,6 +31,10 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,9 +54,39 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomAuthenticationEntryPoint authenticationEntryPoint;
 
+    @Autowired
+    private UserStatusTable userStatusTable;
+
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private SessionGenerationRegistry sessionRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<AuthErrorCode, Counter> rejectionCounters = new ConcurrentHashMap<>();
+
+    // 无状态模式：直接用令牌声明构建用户主体，不查询数据库
+    @Value("${auth.stateless.enabled:false}")
+    private boolean statelessEnabled;
+
     // 日志记录器
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
+    // 只有签发令牌的接口不校验访问令牌（刷新接口的 Authorization 头携带的是刷新令牌）；
+    // 校验令牌、登出等其他 /api/auth 接口照常检查吊销、会话顶替和封禁状态
+    private static final Set<String> SKIPPED_PATHS = Set.of(
+            "/login",
+            "/api/auth/login",
+            "/api/auth/register",
+            "/api/auth/wechat/login",
+            "/api/auth/refresh-token");
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
@@ -49,7 +95,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String requestURI = request.getRequestURI();
 
         // 判断路径是否需要跳过 JWT 验证
-        if (requestURI.startsWith("/api/auth") || requestURI.equals("/login")) {
+        if (SKIPPED_PATHS.contains(requestURI) || requestURI.startsWith("/actuator/")) {
             logger.debug("Skipping JWT validation for path: {}", requestURI);
             chain.doFilter(request, response);
             return;
@@ -57,17 +103,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 获取请求头中的 Authorization 字段
         final String authorizationHeader = request.getHeader("Authorization");
         Long platformUserId = null;
-        String jwt = null;
+        VerifiedToken verifiedToken = null;
 
         try {
             // 检查 Authorization 头是否存在且以 Bearer 开头
             if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
                 // 提取 JWT Token
-                jwt = authorizationHeader.substring(7);
+                String jwt = authorizationHeader.substring(7);
                 logger.debug("Extracted JWT Token: {}", jwt);
 
-                // 从 JWT 中解析出用户 ID（platformUserId）
-                platformUserId = jwtTokenUtil.getPlatformUserIdFromToken(jwt);
+                // 解析并验签一次，后续校验复用同一个 VerifiedToken
+                verifiedToken = jwtTokenUtil.verify(jwt);
+                platformUserId = verifiedToken.getPlatformUserId();
+
+                // 已登出或被吊销的令牌（布隆过滤器判断，通常不需要任何 I/O）
+                if (tokenDenylist.isRevoked(verifiedToken.getJti())) {
+                    logger.warn("Rejected revoked token of userId: {}", platformUserId);
+                    auditLog.record(AuditEventType.TOKEN_REJECTED, platformUserId, request.getRemoteAddr(), "revoked");
+                    countRejection(AuthErrorCode.TOKEN_REVOKED);
+                    authenticationEntryPoint.commence(request, response,
+                            new JwtAuthenticationException(AuthErrorCode.TOKEN_REVOKED, null));
+                    return;
+                }
+
+                // 账号已在其他设备登录（内存代号表比对，不需要 HttpSession）
+                if (!sessionRegistry.isCurrent(platformUserId, verifiedToken.getSessionGeneration())) {
+                    logger.debug("Rejected replaced session of userId: {}", platformUserId);
+                    auditLog.record(AuditEventType.TOKEN_REJECTED, platformUserId, request.getRemoteAddr(), "replaced");
+                    countRejection(AuthErrorCode.SESSION_REPLACED);
+                    authenticationEntryPoint.commence(request, response,
+                            new JwtAuthenticationException(AuthErrorCode.SESSION_REPLACED, null));
+                    return;
+                }
                 logger.debug("Extracted platformUserId from JWT: {}", platformUserId);
             } else {
                 logger.warn("Authorization header is missing or does not start with Bearer");
@@ -75,12 +142,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             // 如果 platformUserId 存在且当前没有已认证的用户
             if (platformUserId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                // 使用 platformUserId 从数据库加载用户详细信息
-                UserDetails userDetails = customUserDetailsService.loadUserByPlatformUserId(platformUserId);
-                logger.debug("Loaded UserDetails for userId: {}", platformUserId);
+                UserDetails userDetails;
+                boolean valid;
+                if (statelessEnabled) {
+                    // 令牌已验签且未过期，只需检查内存状态表中的禁用/封禁标记
+                    if (userStatusTable.isRestricted(platformUserId)) {
+                        logger.warn("Rejected token of restricted userId: {}", platformUserId);
+                        auditLog.record(AuditEventType.TOKEN_REJECTED, platformUserId, request.getRemoteAddr(), "restricted");
+                        countRejection(AuthErrorCode.ACCOUNT_RESTRICTED);
+                        authenticationEntryPoint.commence(request, response,
+                                new JwtAuthenticationException(AuthErrorCode.ACCOUNT_RESTRICTED, null));
+                        return;
+                    }
+                    userDetails = new TokenPrincipal(verifiedToken);
+                    valid = true;
+                } else {
+                    // 使用 platformUserId 从数据库加载用户详细信息
+                    userDetails = customUserDetailsService.loadUserByPlatformUserId(platformUserId);
+                    logger.debug("Loaded UserDetails for userId: {}", platformUserId);
+                    valid = jwtTokenUtil.validateToken(verifiedToken, userDetails);
+                }
 
                 // 验证 JWT 的有效性
-                if (jwtTokenUtil.validateToken(jwt, userDetails)) {
+                if (valid) {
                     // JWT 合法，创建认证对象并设置到 SecurityContext 中
                     UsernamePasswordAuthenticationToken authenticationToken =
                             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
@@ -90,6 +174,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     logger.info("Successfully authenticated userId: {} using JWT", platformUserId);
                 } else {
                     logger.warn("Invalid JWT Token for userId: {}", platformUserId);
+                    auditLog.record(AuditEventType.TOKEN_REJECTED, platformUserId, request.getRemoteAddr(), "invalid");
+                    countRejection(AuthErrorCode.INVALID_TOKEN);
                 }
             } else {
                 if (platformUserId == null) {
@@ -98,24 +184,55 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     logger.debug("User already authenticated with userId: {}", platformUserId);
                 }
             }
+        } catch (JwtAuthenticationException e) {
+            // 令牌过期、签名错误等常规情况，只记录错误码，不打印堆栈
+            logger.debug("Rejected JWT Token: {}", e.getErrorCode());
+            auditLog.record(AuditEventType.TOKEN_REJECTED, platformUserId, request.getRemoteAddr(), e.getErrorCode().name());
+            countRejection(e.getErrorCode());
+            authenticationEntryPoint.commence(request, response, e);
+            return;
         } catch (ExpiredJwtException e) {
             // 处理 JWT 过期异常
-            logger.error("JWT Token has expired", e);
-            authenticationEntryPoint.commence(request, response, new JwtAuthenticationException("Token has expired", e));
+            logger.debug("JWT Token has expired for userId: {}", platformUserId);
+            auditLog.record(AuditEventType.TOKEN_REJECTED, platformUserId, request.getRemoteAddr(), AuthErrorCode.TOKEN_EXPIRED.name());
+            countRejection(AuthErrorCode.TOKEN_EXPIRED);
+            authenticationEntryPoint.commence(request, response, new JwtAuthenticationException(AuthErrorCode.TOKEN_EXPIRED, e));
             return;
         } catch (SignatureException e) {
             // 处理 JWT 签名异常
-            logger.error("Invalid JWT Signature", e);
-            authenticationEntryPoint.commence(request, response, new JwtAuthenticationException("Invalid JWT Signature", e));
+            logger.debug("Invalid JWT Signature: {}", e.getMessage());
+            auditLog.record(AuditEventType.TOKEN_REJECTED, platformUserId, request.getRemoteAddr(), AuthErrorCode.INVALID_SIGNATURE.name());
+            countRejection(AuthErrorCode.INVALID_SIGNATURE);
+            authenticationEntryPoint.commence(request, response, new JwtAuthenticationException(AuthErrorCode.INVALID_SIGNATURE, e));
+            return;
+        } catch (JwtException e) {
+            logger.debug("Invalid JWT Token: {}", e.getMessage());
+            auditLog.record(AuditEventType.TOKEN_REJECTED, platformUserId, request.getRemoteAddr(), AuthErrorCode.INVALID_TOKEN.name());
+            countRejection(AuthErrorCode.INVALID_TOKEN);
+            authenticationEntryPoint.commence(request, response, new JwtAuthenticationException(AuthErrorCode.INVALID_TOKEN, e));
             return;
         } catch (Exception e) {
-            // 捕获其他异常
+            // 捕获其他异常（非常规情况，保留堆栈）
             logger.error("Error occurred while validating JWT Token", e);
-            authenticationEntryPoint.commence(request, response, new JwtAuthenticationException("Invalid JWT Token", e));
+            auditLog.record(AuditEventType.TOKEN_REJECTED, platformUserId, request.getRemoteAddr(), e.getMessage());
+            countRejection(AuthErrorCode.INVALID_TOKEN);
+            authenticationEntryPoint.commence(request, response, new JwtAuthenticationException(AuthErrorCode.INVALID_TOKEN, e));
             return;
         }
 
         // 如果没有异常，继续执行过滤器链中的下一个过滤器
         chain.doFilter(request, response);
     }
+
+    // 按错误码统计被拒绝的令牌（auth.filter.rejections），每个错误码的计数器只注册一次
+    private void countRejection(AuthErrorCode reason) {
+        Counter counter = rejectionCounters.get(reason);
+        if (counter == null) {
+            counter = rejectionCounters.computeIfAbsent(reason, code -> Counter.builder("auth.filter.rejections")
+                    .description("JWT 过滤器拒绝的请求数")
+                    .tag("reason", code.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        counter.increment();
+    }
 }
@@ -0,0 +1,66 @@
+package com.example.xiuxianloginserver.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * 刷新令牌记录，只保存令牌的 SHA-256 摘要，不保存令牌明文。
+ * 每次刷新都追加一条新记录，parentHash 指向被轮换掉的旧令牌；
+ * parentHash 唯一，同一个旧令牌被第二次使用时插入失败，即可识别令牌重放。
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "uk_refresh_tokens_parent_hash", columnList = "parentHash", unique = true),
+        @Index(name = "idx_refresh_tokens_family_id", columnList = "familyId"),
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "expiresAt")
+})
+@Data
+public class RefreshTokenModel implements Persistable<String> {
+
+    @Id
+    @Column(nullable = false, length = 64)
+    private String tokenHash; // 令牌摘要
+
+    @Column(length = 64)
+    private String parentHash; // 被本令牌轮换掉的上一个令牌摘要，首次签发时为空
+
+    @Column(nullable = false)
+    private Long familyId; // 令牌链 ID，同一次登录产生的令牌属于同一条链
+
+    @Column(nullable = false)
+    private Long platformUserId; // 所属用户
+
+    @Column
+    private Long sessionGeneration; // 签发时的会话代号，用户在其他设备登录后整条链失效
+
+    @Column(nullable = false)
+    private long expiresAt; // 过期时间（毫秒时间戳）
+
+    @Column(nullable = false)
+    private long createdAt; // 创建时间（毫秒时间戳）
+
+    @Column(nullable = false)
+    private boolean revoked = false; // 是否已吊销（检测到重放或用户登出时整条链吊销）
+
+    @Transient
+    @EqualsAndHashCode.Exclude
+    private boolean newEntity = true;
+
+    @Override
+    public String getId() {
+        return tokenHash;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+}
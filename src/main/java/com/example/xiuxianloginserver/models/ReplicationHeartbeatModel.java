@@ -0,0 +1,20 @@
+package com.example.xiuxianloginserver.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * 主从复制心跳，只有 id = 1 一行。表结构由本实体定义，读写由 ReplicaHealthMonitor 通过 JDBC 完成。
+ */
+@Entity
+@Table(name = "replication_heartbeat")
+@Data
+public class ReplicationHeartbeatModel {
+
+    @Id
+    @Column(nullable = false)
+    private Integer id; // 固定为 1
+
+    @Column(nullable = false)
+    private long beatMillis; // 主库最近一次写入的心跳时间（毫秒时间戳）
+}
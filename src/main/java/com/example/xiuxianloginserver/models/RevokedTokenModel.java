@@ -0,0 +1,51 @@
+package com.example.xiuxianloginserver.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * 已吊销的访问令牌（按 jti 记录），只需保留到令牌本身过期为止。
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revokedAt"),
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expiresAt")
+})
+@Data
+public class RevokedTokenModel implements Persistable<String> {
+
+    @Id
+    @Column(nullable = false, length = 64)
+    private String jti; // 令牌 ID
+
+    @Column(nullable = false)
+    private Long platformUserId; // 令牌所属用户
+
+    @Column(nullable = false)
+    private long expiresAt; // 令牌过期时间（毫秒时间戳），之后记录可以删除
+
+    @Column(nullable = false)
+    private long revokedAt; // 吊销时间（毫秒时间戳），其他节点据此增量同步
+
+    @Transient
+    @EqualsAndHashCode.Exclude
+    private boolean newEntity = true;
+
+    @Override
+    public String getId() {
+        return jti;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+}
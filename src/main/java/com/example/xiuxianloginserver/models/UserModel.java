@@ -1,21 +1,46 @@
 package com.example.xiuxianloginserver.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.data.domain.Persistable;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.time.LocalDateTime;
 
 /**
  * 用户模型类，包含用户基本信息、认证类型和状态
+ * 主键是预先生成的雪花 ID，实现 Persistable 使新建用户直接执行 INSERT，而不是先 SELECT 再 merge。
+ * 实体放在 Hibernate 二级缓存的 users 区域，用户名是自然 ID，按用户名查找先查 users-by-name 区域（见 ehcache.xml）。
+ * 通过实体保存的修改会同步更新缓存；绕过实体直接执行 UPDATE users 的代码必须自行清除对应的缓存条目。
  */
 @Entity
-@Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = UserModel.CACHE_REGION)
+@NaturalIdCache(region = UserModel.NATURAL_ID_CACHE_REGION)
+@Table(name = "users", uniqueConstraints = {
+        // 注册直接 INSERT，按约束名区分用户名重复和其他写入失败
+        @UniqueConstraint(name = UserModel.USER_NAME_CONSTRAINT, columnNames = "userName")
+}, indexes = {
+        @Index(name = "idx_users_enabled", columnList = "enabled"),
+        @Index(name = "idx_users_banned", columnList = "banned"),
+        // 微信登录按 unionid 查找用户；唯一约束同时保证并发首次登录只会创建一个账号（MySQL 唯一索引允许多个 NULL）
+        @Index(name = UserModel.PLATFORM_GLOBAL_ID_CONSTRAINT, columnList = "platformGlobalId", unique = true)
+})
 @Data
 @Schema(description = "用户实体类，包含用户的基本信息、认证类型、状态信息等")
-public class UserModel {
+public class UserModel implements Persistable<Long> {
 
+    public static final String CACHE_REGION = "users";
+    public static final String NATURAL_ID_CACHE_REGION = "users-by-name";
+    public static final String USER_NAME_CONSTRAINT = "uk_users_user_name";
+    public static final String PLATFORM_GLOBAL_ID_CONSTRAINT = "uk_users_platform_global_id";
 
     @Id
     @Column(nullable = false, unique = true, length = 64)
@@ -26,7 +51,8 @@ public class UserModel {
     @Schema(description = "跨平台唯一标识符，微信授权注册时为unionid，其他情况为空", example = "global_user_001")
     private String platformGlobalId; // 跨平台唯一标识符
 
-    @Column(nullable = false, unique = true, length = 64)
+    @NaturalId
+    @Column(nullable = false, length = 64)
     @Schema(description = "用户登录账号（用户名），用户自己创建，最大长度64字符", example = "user_001", required = true)
     private String userName;  // 用户账号，用于登录的用户名
 
@@ -42,8 +68,8 @@ public class UserModel {
     @Schema(description = "JWT Token，仅用于存储最后一次生成的令牌，可为空", example = "eyJhbGciOiJIUzI1NiIsInR...")
     private String jwtToken; // JWT Token
 
-    @Column(length = 255)
-    @Schema(description = "用户的刷新令牌，用于延长会话的有效期", example = "refresh_token_example")
+    @Transient
+    @Schema(description = "登录时签发的刷新令牌，仅随登录响应返回，服务端只在 refresh_tokens 表中保存其摘要", example = "q3Xv9cH1...")
     private String refreshToken; // 刷新令牌
 
     @Column(nullable = false)
@@ -63,8 +89,41 @@ public class UserModel {
     @Schema(description = "账户创建时间，自动生成，更新时不变", example = "2024-10-14T00:00:00")
     private LocalDateTime createdAt; // 账户创建时间
 
-    @UpdateTimestamp
-    @Column
-    @Schema(description = "上次登录时间，每次更新自动刷新", example = "2024-10-14T12:34:56")
+    // 以下三列只由 LoginStatsRecorder 批量更新，保存实体时不写入，避免用旧值覆盖
+    @Column(updatable = false)
+    @Schema(description = "上次登录时间，登录后数秒内写入", example = "2024-10-14T12:34:56")
     private LocalDateTime lastLogin; // 上次登录时间
+
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    @Schema(description = "累计登录次数", example = "42")
+    private long loginCount = 0; // 登录次数
+
+    @Column(length = 45, updatable = false)
+    @Schema(description = "上次登录的客户端 IP", example = "203.0.113.7")
+    private String lastLoginIp; // 上次登录 IP
+
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @Schema(hidden = true)
+    private boolean newEntity = true; // 是否尚未持久化，从数据库加载或保存后置为 false
+
+    @Override
+    @JsonIgnore
+    public Long getId() {
+        return platformUserId;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
 }
@@ -0,0 +1,26 @@
+package com.example.xiuxianloginserver.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * 用户当前的会话代号。每次登录都会换成一个新的代号并写入访问令牌（sgen 声明）和刷新令牌记录，
+ * 代号与这里不一致的令牌属于被顶替的旧登录。每个用户只有一行。
+ */
+@Entity
+@Table(name = "user_sessions", indexes = {
+        @Index(name = "idx_user_sessions_updated_at", columnList = "updatedAt")
+})
+@Data
+public class UserSessionModel {
+
+    @Id
+    @Column(nullable = false)
+    private Long platformUserId; // 用户 ID
+
+    @Column(nullable = false)
+    private long generation; // 当前会话代号，由数据库按用户递增分配
+
+    @Column(nullable = false)
+    private long updatedAt; // 最后一次登录时间（毫秒时间戳），其他节点据此增量同步
+}
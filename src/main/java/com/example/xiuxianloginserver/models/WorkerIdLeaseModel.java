@@ -0,0 +1,26 @@
+package com.example.xiuxianloginserver.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * 雪花 ID 机器号租约，每个机器 ID 一行。表结构由本实体定义，读写由 WorkerIdLeaser 通过 JDBC 完成。
+ */
+@Entity
+@Table(name = "worker_id_leases")
+@Data
+public class WorkerIdLeaseModel {
+
+    @Id
+    @Column(nullable = false)
+    private Integer workerId; // 机器 ID
+
+    @Column(nullable = false, length = 128)
+    private String owner; // 当前持有租约的节点标识
+
+    @Column(nullable = false)
+    private long expiresAt; // 租约到期时间（毫秒时间戳），之后可被其他节点接手
+
+    @Column(nullable = false)
+    private long lastTimestamp; // 该机器 ID 最后生成 ID 的时间戳，接手的节点从其之后开始生成
+}
@@ -0,0 +1,32 @@
+package com.example.xiuxianloginserver.repository;
+
+import com.example.xiuxianloginserver.models.RefreshTokenModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshTokenModel, String> {
+
+    // 轮换时必须读到刚签发的令牌，覆盖 SimpleJpaRepository 的只读事务，始终读主库
+    @Override
+    @Transactional
+    Optional<RefreshTokenModel> findById(String tokenHash);
+
+    // 吊销整条令牌链
+    @Modifying
+    @Transactional
+    @Query("update RefreshTokenModel t set t.revoked = true where t.familyId = :familyId")
+    int revokeFamily(@Param("familyId") Long familyId);
+
+    // 清理已过期的令牌记录
+    @Modifying
+    @Transactional
+    @Query("delete from RefreshTokenModel t where t.expiresAt < :before")
+    int deleteExpiredBefore(@Param("before") long before);
+}
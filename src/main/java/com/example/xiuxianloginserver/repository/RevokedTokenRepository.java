@@ -0,0 +1,27 @@
+package com.example.xiuxianloginserver.repository;
+
+import com.example.xiuxianloginserver.models.RevokedTokenModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedTokenModel, String> {
+
+    // 启动时加载仍未过期的吊销记录
+    List<RevokedTokenModel> findByExpiresAtGreaterThan(long now);
+
+    // 增量同步其他节点新增的吊销记录
+    List<RevokedTokenModel> findByRevokedAtGreaterThanEqual(long since);
+
+    // 清理令牌已过期的吊销记录
+    @Modifying
+    @Transactional
+    @Query("delete from RevokedTokenModel t where t.expiresAt < :before")
+    int deleteExpiredBefore(@Param("before") long before);
+}
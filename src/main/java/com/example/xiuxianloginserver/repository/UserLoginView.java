@@ -0,0 +1,21 @@
+package com.example.xiuxianloginserver.repository;
+
+/**
+ * 登录投影，只查询校验密码和签发令牌所需的列。
+ */
+public interface UserLoginView {
+
+    Long getPlatformUserId();
+
+    String getUserName();
+
+    String getNickName();
+
+    String getPassword();
+
+    String getAuthType();
+
+    boolean isEnabled();
+
+    boolean isBanned();
+}
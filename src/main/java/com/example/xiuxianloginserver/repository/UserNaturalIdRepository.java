@@ -0,0 +1,13 @@
+package com.example.xiuxianloginserver.repository;
+
+import com.example.xiuxianloginserver.models.UserModel;
+
+import java.util.Optional;
+
+/**
+ * 按自然 ID（用户名）查找用户，命中 Hibernate 自然 ID 缓存时不访问数据库。
+ */
+public interface UserNaturalIdRepository {
+
+    Optional<UserModel> findByUserName(String userName);
+}
@@ -0,0 +1,27 @@
+package com.example.xiuxianloginserver.repository;
+
+import com.example.xiuxianloginserver.models.UserModel;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * 派生查询 findByUserName 会生成 JPQL，每次都查库；这里改用 bySimpleNaturalId，
+ * 依次查自然 ID 缓存和实体缓存，两级都命中时不产生任何 SQL。
+ */
+public class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<UserModel> findByUserName(String userName) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(UserModel.class)
+                .loadOptional(userName);
+    }
+}
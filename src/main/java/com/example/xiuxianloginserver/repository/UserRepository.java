@@ -2,11 +2,38 @@ package com.example.xiuxianloginserver.repository;
 
 import com.example.xiuxianloginserver.models.UserModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+// 查询方法都在只读事务中执行，启用读写分离时走从库；save 等写方法保留 SimpleJpaRepository 上的读写事务
 @Repository
-public interface UserRepository extends JpaRepository<UserModel, Long> {
-    Optional<UserModel> findByUserName(String userName);
+@Transactional(readOnly = true)
+public interface UserRepository extends JpaRepository<UserModel, Long>, UserNaturalIdRepository {
+
+    // 登录只查询必要的列，不加载整个实体
+    @Query("select u.platformUserId as platformUserId, u.userName as userName, u.nickName as nickName, " +
+            "u.password as password, u.authType as authType, u.enabled as enabled, u.banned as banned " +
+            "from UserModel u where u.userName = :userName")
+    Optional<UserLoginView> findLoginViewByUserName(@Param("userName") String userName);
+
+    // 微信登录按 unionid（platformGlobalId）查找，走唯一索引
+    @Query("select u.platformUserId as platformUserId, u.userName as userName, u.nickName as nickName, " +
+            "u.password as password, u.authType as authType, u.enabled as enabled, u.banned as banned " +
+            "from UserModel u where u.platformGlobalId = :platformGlobalId")
+    Optional<UserLoginView> findLoginViewByPlatformGlobalId(@Param("platformGlobalId") String platformGlobalId);
+
+    // 查询所有被禁用或封禁的用户，只取状态相关的列
+    @Query("select u.platformUserId as platformUserId, u.enabled as enabled, u.banned as banned " +
+            "from UserModel u where u.enabled = false or u.banned = true")
+    List<UserStatusView> findRestrictedUsers();
+
+    // 批量检查用户名是否已被占用，只返回已存在的用户名
+    @Query("select u.userName from UserModel u where u.userName in :userNames")
+    List<String> findExistingUserNames(@Param("userNames") Collection<String> userNames);
 }
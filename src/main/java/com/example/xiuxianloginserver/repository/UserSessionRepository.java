@@ -0,0 +1,38 @@
+package com.example.xiuxianloginserver.repository;
+
+import com.example.xiuxianloginserver.models.UserSessionModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserSessionRepository extends JpaRepository<UserSessionModel, Long> {
+
+    // 刷新令牌时以数据库中的最新代号为准，覆盖 SimpleJpaRepository 的只读事务，始终读主库
+    @Override
+    @Transactional
+    Optional<UserSessionModel> findById(Long platformUserId);
+
+    // 会话代号由数据库按用户递增分配，行锁保证多个节点同时登录同一账号时各自得到不同的代号
+    @Modifying
+    @Query("update UserSessionModel s set s.generation = s.generation + 1, s.updatedAt = :now where s.platformUserId = :platformUserId")
+    int incrementGeneration(@Param("platformUserId") Long platformUserId, @Param("now") long now);
+
+    // 首次登录插入第一代，并发插入时由主键冲突决定只有一个成功
+    @Modifying
+    @Query("insert into UserSessionModel (platformUserId, generation, updatedAt) values (:platformUserId, 1, :now)")
+    int insertFirstGeneration(@Param("platformUserId") Long platformUserId, @Param("now") long now);
+
+    // 在递增代号的同一事务中读回本次分配的代号
+    @Query("select s.generation from UserSessionModel s where s.platformUserId = :platformUserId")
+    long findGeneration(@Param("platformUserId") Long platformUserId);
+
+    // 启动加载和增量同步
+    List<UserSessionModel> findByUpdatedAtGreaterThanEqual(long since);
+}
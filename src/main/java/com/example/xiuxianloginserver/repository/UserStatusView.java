@@ -0,0 +1,13 @@
+package com.example.xiuxianloginserver.repository;
+
+/**
+ * 用户状态投影，只查询用户 ID 和启用、封禁标记。
+ */
+public interface UserStatusView {
+
+    Long getPlatformUserId();
+
+    boolean isEnabled();
+
+    boolean isBanned();
+}
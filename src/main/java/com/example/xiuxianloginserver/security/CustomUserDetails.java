@@ -8,28 +8,47 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.util.Collection;
 import java.util.Collections;
 
+/**
+ * 用户详情，只复制认证所需的字段，不持有 UserModel 实体本身，
+ * 以便被缓存时不会携带令牌等无关数据。
+ */
 public class CustomUserDetails implements UserDetails {
 
-    private final UserModel user;
+    private static final Collection<? extends GrantedAuthority> AUTHORITIES =
+            Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private final Long platformUserId;
+    private final String userName;
+    private final String nickName;
+    private final String password;
+    private final String authType;
+    private final boolean enabled;
+    private final boolean banned;
 
     public CustomUserDetails(UserModel user) {
-        this.user = user;
+        this.platformUserId = user.getPlatformUserId();
+        this.userName = user.getUserName();
+        this.nickName = user.getNickName();
+        this.password = user.getPassword();
+        this.authType = user.getAuthType();
+        this.enabled = user.isEnabled();
+        this.banned = user.isBanned();
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         // 假设每个用户都具有 "ROLE_USER" 权限，如果有更多权限，可以在这里返回
-        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
+        return AUTHORITIES;
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();  // 返回加密后的密码
+        return password;  // 返回加密后的密码
     }
 
     @Override
     public String getUsername() {
-        return user.getUserName();  // 返回用户名
+        return userName;  // 返回用户名
     }
 
     @Override
@@ -39,7 +58,7 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public boolean isAccountNonLocked() {
-        return !user.isBanned();  // 检查用户是否被锁定或禁用
+        return !banned;  // 检查用户是否被锁定或禁用
     }
 
     @Override
@@ -49,19 +68,19 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return user.isEnabled();  // 检查用户是否启用
+        return enabled;  // 检查用户是否启用
     }
 
     public Long getPlatformUserId() {
-        return user.getPlatformUserId();  // 返回平台用户 ID
+        return platformUserId;  // 返回平台用户 ID
     }
 
     public String getAuthType() {
-        return user.getAuthType();  // 返回认证类型（如密码、微信等）
+        return authType;  // 返回认证类型（如密码、微信等）
     }
 
     public String getNickName() {
-        return user.getNickName();  // 返回用户昵称
+        return nickName;  // 返回用户昵称
     }
 
     // 其他自定义方法，您可以根据 UserModel 的字段进一步扩展
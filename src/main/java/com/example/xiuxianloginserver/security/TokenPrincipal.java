@@ -0,0 +1,49 @@
+package com.example.xiuxianloginserver.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 无状态模式下的轻量级用户主体，完全由已验签令牌中的声明构建，不访问数据库。
+ */
+public class TokenPrincipal implements UserDetails {
+
+    private static final List<GrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private final Long platformUserId;
+    private final String name;
+    private final String authType;
+
+    public TokenPrincipal(VerifiedToken token) {
+        this.platformUserId = token.getPlatformUserId();
+        this.name = token.getName();
+        this.authType = token.getAuthType();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return AUTHORITIES;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;  // 令牌认证不涉及密码
+    }
+
+    @Override
+    public String getUsername() {
+        return name;
+    }
+
+    public Long getPlatformUserId() {
+        return platformUserId;
+    }
+
+    public String getAuthType() {
+        return authType;
+    }
+}
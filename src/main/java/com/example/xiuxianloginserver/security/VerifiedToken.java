@@ -0,0 +1,100 @@
+package com.example.xiuxianloginserver.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * 已完成签名校验的 JWT。
+ * 每个请求只解析、验签一次，后续环节直接读取其中的声明，避免重复解析同一个令牌。
+ */
+public final class VerifiedToken {
+
+    // 会话代号声明，见 SessionGenerationRegistry
+    public static final String SESSION_GENERATION_CLAIM = "sgen";
+
+    private final Claims claims;
+    private final String jti;
+    private final Long platformUserId;
+    private final String authType;
+    private final String name;
+    private final String platformGlobalId;
+    private final Long sessionGeneration;
+    private final long issuedAtMillis;
+    private final long expirationMillis;
+
+    public VerifiedToken(Claims claims) {
+        this.claims = claims;
+        this.jti = claims.getId();
+        this.platformUserId = claims.get("platformUserId", Long.class);
+        this.authType = claims.get("authType", String.class);
+        this.name = claims.get("name", String.class);
+        this.platformGlobalId = claims.get("platformGlobalId", String.class);
+        this.sessionGeneration = claims.get(SESSION_GENERATION_CLAIM, Long.class);
+        Date issuedAt = claims.getIssuedAt();
+        this.issuedAtMillis = issuedAt != null ? issuedAt.getTime() : 0L;
+        Date expiration = claims.getExpiration();
+        this.expirationMillis = expiration != null ? expiration.getTime() : Long.MAX_VALUE;
+    }
+
+    /**
+     * 原始声明，仅供读取，不要修改。
+     */
+    public Claims getClaims() {
+        return claims;
+    }
+
+    /**
+     * 令牌 ID，用于单个令牌的吊销。
+     */
+    public String getJti() {
+        return jti;
+    }
+
+    public Long getPlatformUserId() {
+        return platformUserId;
+    }
+
+    public String getAuthType() {
+        return authType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPlatformGlobalId() {
+        return platformGlobalId;
+    }
+
+    /**
+     * 签发时的会话代号，单设备登录上线前签发的令牌没有该声明，返回 null。
+     */
+    public Long getSessionGeneration() {
+        return sessionGeneration;
+    }
+
+    public String getSubject() {
+        return claims.getSubject();
+    }
+
+    public long getIssuedAtMillis() {
+        return issuedAtMillis;
+    }
+
+    public long getExpirationMillis() {
+        return expirationMillis;
+    }
+
+    public Date getExpiration() {
+        return new Date(expirationMillis);
+    }
+
+    public boolean isExpired() {
+        return isExpiredAt(System.currentTimeMillis());
+    }
+
+    public boolean isExpiredAt(long nowMillis) {
+        return expirationMillis <= nowMillis;
+    }
+}
@@ -1,21 +1,40 @@
 package com.example.xiuxianloginserver.service;
 
-import cn.hutool.core.lang.Snowflake;
+import com.example.xiuxianloginserver.audit.AuditEventType;
+import com.example.xiuxianloginserver.audit.AuditLog;
+import com.example.xiuxianloginserver.client.WechatClient;
+import com.example.xiuxianloginserver.client.WechatProfile;
+import com.example.xiuxianloginserver.client.WechatSession;
+import com.example.xiuxianloginserver.datasource.ReadWriteRoutingDataSource;
+import com.example.xiuxianloginserver.datasource.ReadYourWritesTracker;
+import com.example.xiuxianloginserver.dto.LoginResponse;
+import com.example.xiuxianloginserver.dto.TokenPairResponse;
 import com.example.xiuxianloginserver.dto.UserLoginRequest;
 import com.example.xiuxianloginserver.dto.UserRegistrationRequest;
+import com.example.xiuxianloginserver.exception.CooldownException;
+import com.example.xiuxianloginserver.exception.ServiceBusyException;
 import com.example.xiuxianloginserver.exception.InvalidLoginException;
 import com.example.xiuxianloginserver.exception.InvalidTokenException;
+import com.example.xiuxianloginserver.exception.JwtAuthenticationException;
 import com.example.xiuxianloginserver.exception.UserAlreadyExistsException;
 import com.example.xiuxianloginserver.exception.UserNotFoundException;
+import com.example.xiuxianloginserver.exception.WechatAuthException;
 import com.example.xiuxianloginserver.models.UserModel;
+import com.example.xiuxianloginserver.repository.UserLoginView;
 import com.example.xiuxianloginserver.repository.UserRepository;
+import com.example.xiuxianloginserver.security.CustomUserDetails;
+import com.example.xiuxianloginserver.security.VerifiedToken;
+import com.example.xiuxianloginserver.util.ConstraintViolations;
 import com.example.xiuxianloginserver.util.CustomApiResponse;
+import com.example.xiuxianloginserver.util.IdGenerator;
 import com.example.xiuxianloginserver.util.JwtTokenUtil;
-import cn.hutool.core.util.IdUtil;
 import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +42,9 @@ import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 public class AuthService {
@@ -30,31 +52,71 @@ public class AuthService {
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
     private final UserRepository userRepository;
     private final JwtTokenUtil jwtTokenUtil;
-    private final PasswordEncoder passwordEncoder;
-    private final Snowflake snowflake = IdUtil.getSnowflake(1, 1);  // 生成唯一ID
+    private final PasswordHashingService passwordHashingService;
+    private final IdGenerator idGenerator;  // 生成唯一ID
+
+    // 微信账号没有密码，存一个不可能是 BCrypt 哈希的值，账号密码登录永远校验失败
+    private static final String WECHAT_PASSWORD_PLACEHOLDER = "!";
+    private static final String WECHAT_DEFAULT_NICKNAME = "微信用户";
 
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
     @Autowired
-    public AuthService(UserRepository userRepository, JwtTokenUtil jwtTokenUtil, PasswordEncoder passwordEncoder) {
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private WechatClient wechatClient;
+
+    @Autowired
+    private SessionGenerationRegistry sessionRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 操作 -> 结果 -> auth.requests 计时器
+    private final Map<String, Map<String, Timer>> requestTimers = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ReadYourWritesTracker readYourWrites;
+
+    @Autowired
+    private LoginStatsRecorder loginStatsRecorder;
+
+    @Autowired
+    public AuthService(UserRepository userRepository, JwtTokenUtil jwtTokenUtil, PasswordHashingService passwordHashingService,
+                       IdGenerator idGenerator) {
         this.userRepository = userRepository;
+        this.idGenerator = idGenerator;
         this.jwtTokenUtil = jwtTokenUtil;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
     }
 
     // 注册用户
     public String register(UserRegistrationRequest request) {
-        logger.debug("开始处理账号密码注册请求：{}", request.getUsername());
+        return register(request, null);
+    }
 
-        // 检查用户名是否已存在
-        if (userRepository.findByUserName(request.getUsername()).isPresent()) {
-            throw new UserAlreadyExistsException("用户名已存在");
-        }
+    // 注册用户，clientIp 仅用于审计记录
+    public String register(UserRegistrationRequest request, String clientIp) {
+        return timed("register", () -> doRegister(request, clientIp));
+    }
+
+    private String doRegister(UserRegistrationRequest request, String clientIp) {
+        logger.debug("开始处理账号密码注册请求：{}", request.getUsername());
 
-        // 加密密码并创建用户
-        String encodedPassword = passwordEncoder.encode(request.getPassword());
-        Long platformUserId = snowflake.nextId();  // 生成 Long 类型的雪花ID
+        // 加密密码并创建用户（在密码哈希线程池中执行，哈希值需要随用户一起写入）
+        String encodedPassword = passwordHashingService.encode(request.getPassword());
+        Long platformUserId = idGenerator.nextId();  // 生成 Long 类型的雪花ID
 
         UserModel user = new UserModel();
         user.setPlatformUserId(platformUserId);
@@ -63,80 +125,309 @@ public class AuthService {
         user.setPassword(encodedPassword);
         user.setAuthType("account_password");
 
-        // 生成 JWT 令牌
-        String jwtToken = jwtTokenUtil.generateToken(user.getPlatformUserId(), user.getAuthType(), user.getUserName());
-        user.setJwtToken(jwtToken);
+        // 直接 INSERT，用户名是否重复由 userName 唯一约束判断，省去注册前的查询
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            // 只有用户名唯一约束冲突才是重复注册，其他约束或数据错误照常抛出
+            if (!ConstraintViolations.isViolationOf(e, UserModel.USER_NAME_CONSTRAINT)) {
+                throw e;
+            }
+            logger.debug("用户名已存在：{}", request.getUsername());
+            auditLog.record(AuditEventType.REGISTER_FAILURE, null, clientIp, request.getUsername());
+            throw new UserAlreadyExistsException("用户名已存在");
+        }
+        // 从库可能还没有新用户，写后读窗口内对该用户的查询走主库
+        readYourWrites.markWritten(user.getUserName(), platformUserId);
 
-        userRepository.save(user);
+        // 插入成功后再签发 JWT 令牌
+        String jwtToken = jwtTokenUtil.generateToken(user.getPlatformUserId(), user.getAuthType(), user.getUserName());
         logger.debug("注册成功，生成的JWT令牌：{}", jwtToken);
+        auditLog.record(AuditEventType.REGISTER, platformUserId, clientIp, request.getUsername());
 
         return jwtToken;
     }
 
     // 用户登录
-    public UserModel login(UserLoginRequest request) {
+    public LoginResponse login(UserLoginRequest request) {
+        return login(request, null);
+    }
+
+    // 用户登录，clientIp 用于按来源限流，为 null 时只按用户名限流
+    public LoginResponse login(UserLoginRequest request, String clientIp) {
+        return timed("login", () -> doLogin(request, clientIp));
+    }
+
+    private LoginResponse doLogin(UserLoginRequest request, String clientIp) {
         logger.debug("开始处理用户登录请求：{}", request.getUsername());
 
-        // 查找用户
-        Optional<UserModel> userOptional = userRepository.findByUserName(request.getUsername());
+        // 限流检查放在查库和 BCrypt 之前，过于频繁时抛出 CooldownException
+        try {
+            loginRateLimiter.check(request.getUsername(), clientIp);
+        } catch (CooldownException e) {
+            auditLog.record(AuditEventType.LOGIN_THROTTLED, null, clientIp, request.getUsername());
+            throw e;
+        }
+
+        // 只查询登录需要的列
+        Optional<UserLoginView> userOptional = readYourWrites.read(request.getUsername(),
+                () -> userRepository.findLoginViewByUserName(request.getUsername()), Optional::isEmpty);
         if (userOptional.isEmpty()) {
+            auditLog.record(AuditEventType.LOGIN_FAILURE, null, clientIp, request.getUsername());
             throw new InvalidLoginException("用户不存在");
         }
 
-        UserModel user = userOptional.get();
+        UserLoginView user = userOptional.get();
 
-        // 验证密码
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        // 验证密码（在密码哈希线程池中执行，繁忙时抛出 ServiceBusyException）
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
+            auditLog.record(AuditEventType.LOGIN_FAILURE, user.getPlatformUserId(), clientIp, "密码错误");
             throw new InvalidLoginException("密码错误");
         }
 
-        // 生成新的 JWT 令牌
-        String jwtToken = jwtTokenUtil.generateToken(user.getPlatformUserId(), user.getAuthType(), user.getUserName());
-        user.setJwtToken(jwtToken);  // 更新用户对象中的 JWT 令牌
+        // 密码正确后再检查账号状态，避免通过错误信息探测账号是否被封禁
+        if (!user.isEnabled() || user.isBanned()) {
+            auditLog.record(AuditEventType.LOGIN_FAILURE, user.getPlatformUserId(), clientIp, "账号已被禁用或封禁");
+            throw new InvalidLoginException("账号已被禁用或封禁");
+        }
 
-        // 如果你有特殊需求，比如在登录时需要记录令牌，则保存用户信息
-        // userRepository.save(user);
+        // 换用新的会话代号顶替其他设备上的登录，生成新的 JWT 令牌，并签发新的刷新令牌（不写入 users 表）
+        Long sessionGeneration = sessionRegistry.startSession(user.getPlatformUserId());
+        String jwtToken = jwtTokenUtil.generateToken(user.getPlatformUserId(), user.getAuthType(), user.getUserName(),
+                null, sessionGeneration);
+        String refreshToken = refreshTokenService.issue(user.getPlatformUserId(), sessionGeneration);
 
         logger.debug("登录成功，生成的JWT令牌：{}", jwtToken);
+        auditLog.record(AuditEventType.LOGIN_SUCCESS, user.getPlatformUserId(), clientIp, null);
+        // 上次登录时间、登录次数等由后台批量写入 users 表
+        loginStatsRecorder.record(user.getPlatformUserId(), clientIp);
+
+        return new LoginResponse(user.getPlatformUserId(), user.getUserName(), user.getNickName(), user.getAuthType(),
+                jwtToken, refreshToken, jwtTokenUtil.getAccessTokenValiditySeconds());
+    }
+
+
+    // 微信登录：用授权码换取 unionid，已有账号直接登录，没有则自动注册。整个过程不涉及 BCrypt
+    public LoginResponse wechatLogin(String wechatCode, String clientIp) {
+        return timed("wechat_login", () -> doWechatLogin(wechatCode, clientIp));
+    }
+
+    private LoginResponse doWechatLogin(String wechatCode, String clientIp) {
+        logger.debug("开始处理微信登录请求");
+
+        // 授权码不对应用户名，只按来源 IP 限流
+        try {
+            loginRateLimiter.check(null, clientIp);
+        } catch (CooldownException e) {
+            auditLog.record(AuditEventType.LOGIN_THROTTLED, null, clientIp, "wechat");
+            throw e;
+        }
+
+        WechatSession session;
+        try {
+            session = wechatClient.exchangeCode(wechatCode);
+        } catch (WechatAuthException e) {
+            auditLog.record(AuditEventType.LOGIN_FAILURE, null, clientIp, "wechat:" + e.getErrorCode());
+            throw e;
+        }
+        String platformGlobalId = session.globalId();
+
+        UserLoginView user = readYourWrites.read(platformGlobalId,
+                        () -> userRepository.findLoginViewByPlatformGlobalId(platformGlobalId), Optional::isEmpty)
+                .or(() -> backfillUnionId(session))
+                .orElseGet(() -> registerWechatUser(session, clientIp));
+
+        if (!user.isEnabled() || user.isBanned()) {
+            auditLog.record(AuditEventType.LOGIN_FAILURE, user.getPlatformUserId(), clientIp, "账号已被禁用或封禁");
+            throw new InvalidLoginException("账号已被禁用或封禁");
+        }
+
+        Long sessionGeneration = sessionRegistry.startSession(user.getPlatformUserId());
+        String jwtToken = jwtTokenUtil.generateToken(user.getPlatformUserId(), user.getAuthType(), user.getUserName(),
+                platformGlobalId, sessionGeneration);
+        String refreshToken = refreshTokenService.issue(user.getPlatformUserId(), sessionGeneration);
+        auditLog.record(AuditEventType.LOGIN_SUCCESS, user.getPlatformUserId(), clientIp, "wechat");
+        loginStatsRecorder.record(user.getPlatformUserId(), clientIp);
+
+        return new LoginResponse(user.getPlatformUserId(), user.getUserName(), user.getNickName(), user.getAuthType(),
+                jwtToken, refreshToken, jwtTokenUtil.getAccessTokenValiditySeconds());
+    }
+
+    // 没有 unionid 时注册的账号以 openid 作为 platformGlobalId；之后拿到 unionid 时改写为 unionid 并登录该账号，不再注册新账号。
+    // 并发登录同一账号时重复改写为同一个值，结果相同
+    private Optional<UserLoginView> backfillUnionId(WechatSession session) {
+        String openId = session.openId();
+        String unionId = session.unionId();
+        if (openId == null || unionId == null || unionId.isEmpty() || unionId.equals(openId)) {
+            return Optional.empty();
+        }
+        Optional<UserLoginView> existing = readYourWrites.read(openId,
+                () -> userRepository.findLoginViewByPlatformGlobalId(openId), Optional::isEmpty);
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        Long platformUserId = existing.get().getPlatformUserId();
+        // 通过实体保存，二级缓存随之更新
+        ReadWriteRoutingDataSource.onPrimary(() -> userRepository.findById(platformUserId)).ifPresent(user -> {
+            user.setPlatformGlobalId(unionId);
+            userRepository.saveAndFlush(user);
+        });
+        readYourWrites.markWritten(unionId, platformUserId);
+        logger.info("微信账号补写 unionid，用户 ID：{}", platformUserId);
+        return existing;
+    }
+
+    // 首次微信登录时创建账号；并发的首次登录由 platformGlobalId 唯一约束保证只创建一个
+    private UserLoginView registerWechatUser(WechatSession session, String clientIp) {
+        String nickName = WECHAT_DEFAULT_NICKNAME;
+        try {
+            WechatProfile profile = wechatClient.fetchProfile(session.accessToken(), session.openId());
+            if (profile.nickname() != null && !profile.nickname().isBlank()) {
+                nickName = profile.nickname().length() > 64 ? profile.nickname().substring(0, 64) : profile.nickname();
+            }
+        } catch (RuntimeException e) {
+            // 资料获取失败不影响登录，使用默认昵称
+            logger.warn("获取微信用户资料失败，使用默认昵称: {}", e.getMessage());
+        }
+
+        Long platformUserId = idGenerator.nextId();
+        UserModel user = new UserModel();
+        user.setPlatformUserId(platformUserId);
+        user.setPlatformGlobalId(session.globalId());
+        user.setUserName("wx_" + platformUserId);
+        user.setNickName(nickName);
+        user.setPassword(WECHAT_PASSWORD_PLACEHOLDER);
+        user.setAuthType("wechat");
 
-        // 返回包含 JWT Token 的 UserModel 对象
-        return user;
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            // 只有 platformGlobalId 唯一约束冲突才说明账号已由并发请求创建，其他约束或数据错误照常抛出
+            if (!ConstraintViolations.isViolationOf(e, UserModel.PLATFORM_GLOBAL_ID_CONSTRAINT)) {
+                throw e;
+            }
+            logger.debug("微信账号已由并发请求创建：{}", session.globalId());
+            return ReadWriteRoutingDataSource.onPrimary(() -> userRepository.findLoginViewByPlatformGlobalId(session.globalId()))
+                    .orElseThrow(() -> e);
+        }
+        readYourWrites.markWritten(session.globalId(), platformUserId);
+        auditLog.record(AuditEventType.REGISTER, platformUserId, clientIp, "wechat");
+        logger.debug("微信账号注册成功，用户 ID：{}", platformUserId);
+        return new WechatUserView(user);
     }
 
+    // 新建的微信账号直接用实体构造登录视图，省去一次查询
+    private record WechatUserView(UserModel user) implements UserLoginView {
+
+        @Override
+        public Long getPlatformUserId() {
+            return user.getPlatformUserId();
+        }
+
+        @Override
+        public String getUserName() {
+            return user.getUserName();
+        }
+
+        @Override
+        public String getNickName() {
+            return user.getNickName();
+        }
+
+        @Override
+        public String getPassword() {
+            return user.getPassword();
+        }
+
+        @Override
+        public String getAuthType() {
+            return user.getAuthType();
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return user.isEnabled();
+        }
+
+        @Override
+        public boolean isBanned() {
+            return user.isBanned();
+        }
+    }
+
+    // 刷新令牌：校验并轮换刷新令牌，签发新的访问令牌，不再改写 users 表
+    public TokenPairResponse refreshToken(String refreshToken) {
+        return refreshToken(refreshToken, null);
+    }
+
+    // 刷新令牌，clientIp 仅用于审计记录
+    public TokenPairResponse refreshToken(String refreshToken, String clientIp) {
+        return timed("refresh", () -> doRefreshToken(refreshToken, clientIp));
+    }
 
-    // 刷新令牌
-    public String refreshToken(String oldToken) {
+    private TokenPairResponse doRefreshToken(String refreshToken, String clientIp) {
         logger.debug("开始处理令牌刷新请求");
 
-        Long platformUserId = jwtTokenUtil.getPlatformUserIdFromToken(oldToken);
-        Optional<UserModel> userOptional = userRepository.findById(platformUserId);
-        if (userOptional.isEmpty()) {
-            throw new UserNotFoundException("用户不存在");
+        RefreshTokenService.Rotation rotation;
+        try {
+            rotation = refreshTokenService.rotate(refreshToken);
+        } catch (InvalidTokenException e) {
+            auditLog.record(AuditEventType.TOKEN_REFRESH_FAILURE, null, clientIp, e.getMessage());
+            throw e;
+        }
+
+        // 账号已在其他设备登录，旧设备的令牌链不能再刷新
+        if (!sessionRegistry.isCurrentInStore(rotation.platformUserId(), rotation.sessionGeneration())) {
+            refreshTokenService.revokeFamily(rotation.familyId());
+            auditLog.record(AuditEventType.TOKEN_REFRESH_FAILURE, rotation.platformUserId(), clientIp, "replaced");
+            throw new InvalidTokenException("账号已在其他设备登录");
         }
 
-        UserModel user = userOptional.get();
-        String newJwtToken = jwtTokenUtil.generateToken(user.getPlatformUserId(), user.getAuthType(), user.getUserName());
-        user.setJwtToken(newJwtToken);
+        CustomUserDetails userDetails;
+        try {
+            userDetails = (CustomUserDetails) userDetailsService.loadUserByPlatformUserId(rotation.platformUserId());
+        } catch (UsernameNotFoundException e) {
+            throw new UserNotFoundException("用户不存在");
+        }
+        if (!userDetails.isEnabled() || !userDetails.isAccountNonLocked()) {
+            refreshTokenService.revokeFamily(rotation.familyId());
+            auditLog.record(AuditEventType.TOKEN_REFRESH_FAILURE, rotation.platformUserId(), clientIp, "账号已被禁用或封禁");
+            throw new InvalidTokenException("账号已被禁用或封禁");
+        }
 
-        userRepository.save(user);
+        String newJwtToken = jwtTokenUtil.generateToken(userDetails.getPlatformUserId(), userDetails.getAuthType(),
+                userDetails.getUsername(), null, rotation.sessionGeneration());
         logger.debug("令牌刷新成功，生成的新JWT令牌：{}", newJwtToken);
+        auditLog.record(AuditEventType.TOKEN_REFRESH, rotation.platformUserId(), clientIp, null);
 
-        return newJwtToken;
+        return new TokenPairResponse(newJwtToken, rotation.refreshToken(), jwtTokenUtil.getAccessTokenValiditySeconds());
     }
 
     // 验证令牌
     public Map<String, Object> validateToken(String token) {
+        return timed("validate", () -> doValidateToken(token));
+    }
+
+    private Map<String, Object> doValidateToken(String token) {
         try {
-            // 从令牌中提取用户 ID
-            Long platformUserId = jwtTokenUtil.getPlatformUserIdFromToken(token);
+            // 解析并验签令牌，提取用户 ID
+            VerifiedToken verifiedToken = jwtTokenUtil.verify(token);
+            Long platformUserId = verifiedToken.getPlatformUserId();
             logger.debug("从令牌中解析出用户 ID: {}", platformUserId);
 
+            if (tokenDenylist.isRevoked(verifiedToken.getJti())) {
+                throw new InvalidTokenException("令牌已被吊销");
+            }
+            if (!sessionRegistry.isCurrent(platformUserId, verifiedToken.getSessionGeneration())) {
+                throw new InvalidTokenException("账号已在其他设备登录");
+            }
+
             // 使用 platformUserId 加载 UserDetails
             UserDetails userDetails = userDetailsService.loadUserByPlatformUserId(platformUserId);
             logger.debug("加载的用户详情: {}", userDetails);
 
             // 验证 JWT 令牌的有效性
-            boolean isValid = jwtTokenUtil.validateToken(token, userDetails);
+            boolean isValid = jwtTokenUtil.validateToken(verifiedToken, userDetails);
             if (!isValid) {
                 throw new InvalidTokenException("JWT 令牌无效或已过期");
             }
@@ -153,4 +444,74 @@ public class AuthService {
             throw new InvalidTokenException("令牌无效或解析失败");
         }
     }
+
+    // 登出：吊销当前访问令牌，如果提供了刷新令牌则同时吊销其令牌链
+    public void logout(String accessToken, String refreshToken, String clientIp) {
+        VerifiedToken verifiedToken;
+        try {
+            verifiedToken = jwtTokenUtil.verify(accessToken);
+        } catch (JwtAuthenticationException e) {
+            throw new InvalidTokenException("令牌无效或已过期");
+        }
+        tokenDenylist.revoke(verifiedToken);
+
+        if (refreshToken != null && !refreshToken.isEmpty()) {
+            refreshTokenService.revoke(refreshToken);
+        }
+        logger.debug("用户已登出，用户 ID：{}", verifiedToken.getPlatformUserId());
+        auditLog.record(AuditEventType.LOGOUT, verifiedToken.getPlatformUserId(), clientIp, null);
+    }
+
+    /**
+     * 记录一次认证操作的耗时，按操作和结果分别统计（auth.requests 计时器）。
+     */
+    private <T> T timed(String operation, Supplier<T> action) {
+        long started = System.nanoTime();
+        String outcome = "success";
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            requestTimer(operation, outcome).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // 操作和结果都只有少数几个取值，计时器按组合缓存，请求路径上不再重复构建和注册
+    private Timer requestTimer(String operation, String outcome) {
+        Map<String, Timer> byOutcome = requestTimers.get(operation);
+        if (byOutcome == null) {
+            byOutcome = requestTimers.computeIfAbsent(operation, key -> new ConcurrentHashMap<>());
+        }
+        Timer timer = byOutcome.get(outcome);
+        if (timer == null) {
+            timer = byOutcome.computeIfAbsent(outcome, key -> Timer.builder("auth.requests")
+                    .description("认证接口耗时")
+                    .tag("operation", operation)
+                    .tag("outcome", key)
+                    .register(meterRegistry));
+        }
+        return timer;
+    }
+
+    // 结果标签只取有限的几个值，避免把异常信息写进标签
+    private static String outcomeOf(RuntimeException e) {
+        if (e instanceof InvalidLoginException) {
+            return "invalid_credentials";
+        } else if (e instanceof UserAlreadyExistsException) {
+            return "duplicate";
+        } else if (e instanceof CooldownException) {
+            return "throttled";
+        } else if (e instanceof ServiceBusyException) {
+            return "busy";
+        } else if (e instanceof InvalidTokenException || e instanceof JwtAuthenticationException) {
+            return "invalid_token";
+        } else if (e instanceof UserNotFoundException) {
+            return "user_not_found";
+        } else if (e instanceof WechatAuthException) {
+            return "wechat_error";
+        }
+        return "error";
+    }
 }
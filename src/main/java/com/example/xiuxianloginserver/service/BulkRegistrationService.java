@@ -0,0 +1,282 @@
+package com.example.xiuxianloginserver.service;
+
+import com.example.xiuxianloginserver.dto.BulkRegistrationResult;
+import com.example.xiuxianloginserver.dto.BulkRegistrationResult.Row;
+import com.example.xiuxianloginserver.dto.BulkRegistrationResult.RowStatus;
+import com.example.xiuxianloginserver.dto.UserRegistrationRequest;
+import com.example.xiuxianloginserver.exception.AuthorizationException;
+import com.example.xiuxianloginserver.exception.InvalidParameterException;
+import com.example.xiuxianloginserver.models.UserModel;
+import com.example.xiuxianloginserver.repository.UserRepository;
+import com.example.xiuxianloginserver.util.ConstraintViolations;
+import com.example.xiuxianloginserver.util.IdGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量开户服务，用于压测、内部测试、机器人玩家和渠道预置账号。
+ * 请求体是账号数组，按批次流式读取：每批先用一次查询排除已存在的用户名，
+ * 再在专用线程池中并行计算 BCrypt，最后通过 Hibernate 批量 INSERT 写入。
+ * BCrypt 线程池只有少数几个线程（hash-threads），导入再大也不会占满 CPU 影响登录；
+ * 单次请求最多处理 max-accounts 个账号，逐行结果占用的内存有上限，更多账号由调用方分多次提交。
+ */
+@Service
+public class BulkRegistrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkRegistrationService.class);
+
+    private static final int MAX_USERNAME_LENGTH = 64;
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final IdGenerator idGenerator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAccounts;
+    private final byte[] adminApiKey;
+
+    // 批量开户专用的哈希线程池，不占用登录使用的密码哈希线程池；每次最多提交一批任务，队列长度不超过 batch-size
+    private final ThreadPoolExecutor hashExecutor;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BulkRegistrationService(UserRepository userRepository,
+                                   PasswordEncoder passwordEncoder,
+                                   IdGenerator idGenerator,
+                                   ObjectMapper objectMapper,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${auth.bulk-register.batch-size:500}") int batchSize,
+                                   @Value("${auth.bulk-register.max-accounts:10000}") int maxAccounts,
+                                   @Value("${auth.bulk-register.hash-threads:0}") int hashThreads,
+                                   @Value("${auth.admin.api-key:}") String adminApiKey) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.idGenerator = idGenerator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAccounts = maxAccounts;
+        this.adminApiKey = adminApiKey.getBytes(StandardCharsets.UTF_8);
+
+        int poolSize = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.hashExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bulk-register-hash-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 校验管理接口密钥，未配置密钥时批量接口整体关闭。
+     */
+    public void checkAdminKey(String providedKey) {
+        if (adminApiKey.length == 0) {
+            throw new AuthorizationException("批量开户接口未启用");
+        }
+        if (providedKey == null
+                || !MessageDigest.isEqual(adminApiKey, providedKey.getBytes(StandardCharsets.UTF_8))) {
+            throw new AuthorizationException("管理密钥无效");
+        }
+    }
+
+    /**
+     * 从 JSON 数组流中逐批读取账号并写入数据库。
+     */
+    public BulkRegistrationResult provision(InputStream body) throws IOException {
+        long start = System.currentTimeMillis();
+        BulkRegistrationResult result = new BulkRegistrationResult();
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new InvalidParameterException("请求体必须是账号数组");
+            }
+
+            List<UserRegistrationRequest> batch = new ArrayList<>(batchSize);
+            int index = 0;
+            int batchStart = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    // 已处理的批次已经提交，重新提交时会作为“用户名已存在”返回
+                    throw new InvalidParameterException("账号数组的元素必须是对象，下标：" + index);
+                }
+                if (index == maxAccounts) {
+                    // 剩余账号不再读取，由调用方从下标 total 处继续提交
+                    result.setTruncated(true);
+                    break;
+                }
+                batch.add(objectMapper.readValue(parser, UserRegistrationRequest.class));
+                index++;
+                if (batch.size() == batchSize) {
+                    processBatch(batch, batchStart, result);
+                    batch.clear();
+                    batchStart = index;
+                }
+            }
+            if (!batch.isEmpty()) {
+                processBatch(batch, batchStart, result);
+            }
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        logger.info("批量开户完成：共 {} 个，成功 {} 个，失败 {} 个，耗时 {} ms",
+                result.getTotal(), result.getCreated(), result.getFailed(), result.getElapsedMillis());
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashExecutor.shutdown();
+    }
+
+    private void processBatch(List<UserRegistrationRequest> batch, int batchStart, BulkRegistrationResult result) {
+        Row[] rows = new Row[batch.size()];
+
+        // 1. 参数校验以及批内去重；前面的批次已经提交，与它们重复的用户名由第 2 步的查询排除
+        Set<String> seen = new HashSet<>();
+        List<Candidate> candidates = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            UserRegistrationRequest request = batch.get(i);
+            String username = request.getUsername();
+            if (username == null || username.isBlank() || username.length() > MAX_USERNAME_LENGTH
+                    || request.getPassword() == null || request.getPassword().isEmpty()) {
+                rows[i] = new Row(batchStart + i, username, RowStatus.INVALID, null, "用户名或密码无效");
+            } else if (!seen.add(username)) {
+                rows[i] = new Row(batchStart + i, username, RowStatus.DUPLICATE, null, "请求中用户名重复");
+            } else {
+                candidates.add(new Candidate(i, username, request.getPassword()));
+            }
+        }
+
+        // 2. 一次查询排除数据库中已存在的用户名
+        if (!candidates.isEmpty()) {
+            Set<String> existing = new HashSet<>(userRepository.findExistingUserNames(
+                    candidates.stream().map(Candidate::username).toList()));
+            candidates.removeIf(candidate -> {
+                if (existing.contains(candidate.username())) {
+                    rows[candidate.offset()] = new Row(batchStart + candidate.offset(), candidate.username(),
+                            RowStatus.DUPLICATE, null, "用户名已存在");
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        // 3. 并行计算密码哈希，4. 批量写入
+        if (!candidates.isEmpty()) {
+            List<UserModel> users = hashPasswords(candidates);
+            insertBatch(candidates, users, rows, batchStart);
+        }
+
+        for (Row row : rows) {
+            result.addRow(row);
+        }
+    }
+
+    private List<UserModel> hashPasswords(List<Candidate> candidates) {
+        List<Future<UserModel>> futures = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            futures.add(hashExecutor.submit(() -> newUser(candidate, passwordEncoder.encode(candidate.password()))));
+        }
+        List<UserModel> users = new ArrayList<>(candidates.size());
+        try {
+            for (Future<UserModel> future : futures) {
+                users.add(future.get());
+            }
+            return users;
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("批量密码哈希被中断", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("批量密码哈希失败", e.getCause());
+        }
+    }
+
+    private void insertBatch(List<Candidate> candidates, List<UserModel> users, Row[] rows, int batchStart) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (UserModel user : users) {
+                    entityManager.persist(user);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            for (int i = 0; i < candidates.size(); i++) {
+                Candidate candidate = candidates.get(i);
+                rows[candidate.offset()] = new Row(batchStart + candidate.offset(), candidate.username(),
+                        RowStatus.CREATED, users.get(i).getPlatformUserId(), null);
+            }
+        } catch (RuntimeException e) {
+            // 并发注册导致唯一约束冲突等情况，整批回滚后逐行重试以给出准确结果
+            logger.warn("批量写入失败，改为逐行写入：{}", e.getMessage());
+            for (int i = 0; i < candidates.size(); i++) {
+                rows[candidates.get(i).offset()] = insertSingle(candidates.get(i), users.get(i), batchStart);
+            }
+        }
+    }
+
+    private Row insertSingle(Candidate candidate, UserModel failedUser, int batchStart) {
+        int index = batchStart + candidate.offset();
+        // 回滚后的实体状态不可靠，重新构建
+        UserModel user = newUser(candidate, failedUser.getPassword());
+        try {
+            userRepository.saveAndFlush(user);
+            return new Row(index, candidate.username(), RowStatus.CREATED, user.getPlatformUserId(), null);
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.isViolationOf(e, UserModel.USER_NAME_CONSTRAINT)) {
+                return new Row(index, candidate.username(), RowStatus.DUPLICATE, null, "用户名已存在");
+            }
+            logger.error("写入账号失败：{}，原因：{}", candidate.username(), e.getMessage());
+            return new Row(index, candidate.username(), RowStatus.FAILED, null, "写入失败");
+        } catch (RuntimeException e) {
+            logger.error("写入账号失败：{}，原因：{}", candidate.username(), e.getMessage());
+            return new Row(index, candidate.username(), RowStatus.FAILED, null, "写入失败");
+        }
+    }
+
+    private UserModel newUser(Candidate candidate, String encodedPassword) {
+        UserModel user = new UserModel();
+        user.setPlatformUserId(idGenerator.nextId());
+        user.setUserName(candidate.username());
+        user.setNickName(candidate.username());
+        user.setPassword(encodedPassword);
+        user.setAuthType("account_password");
+        return user;
+    }
+
+    private record Candidate(int offset, String username, String password) {
+    }
+}
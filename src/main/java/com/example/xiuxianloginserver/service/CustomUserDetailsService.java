@@ -1,39 +1,151 @@
 package com.example.xiuxianloginserver.service;
 
+import com.example.xiuxianloginserver.datasource.ReadYourWritesTracker;
 import com.example.xiuxianloginserver.models.UserModel;
 import com.example.xiuxianloginserver.repository.UserRepository;
 import com.example.xiuxianloginserver.security.CustomUserDetails;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Optional;
 
+/**
+ * 用户详情服务，按平台用户 ID 和用户名两个维度缓存用户详情。
+ * 缓存有容量和过期时间上限；同一个键的并发加载只会触发一次数据库查询。
+ * 用户被封禁、禁用或修改密码时，必须调用对应的失效方法；失效方法同时清除 Hibernate 二级缓存中的 UserModel，
+ * 否则下一次加载会从二级缓存读回旧的实体。
+ * 其他节点上的修改不会通知本节点，本节点最多在 ttl-seconds 加上二级缓存过期时间（见 ehcache.xml）之后看到新状态。
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CustomUserDetailsService.class);
+
     private final UserRepository userRepository;
+    private final UserStatusTable userStatusTable;
+    private final ReadYourWritesTracker readYourWrites;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Cache<Long, CustomUserDetails> detailsById;
+    private final Cache<String, CustomUserDetails> detailsByUserName;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    // 缓存未命中时查询数据库的耗时
+    private final Timer lookupByIdTimer;
+    private final Timer lookupByUserNameTimer;
+
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    UserStatusTable userStatusTable,
+                                    @Value("${auth.user-cache.max-size:100000}") long maxSize,
+                                    @Value("${auth.user-cache.ttl-seconds:300}") long ttlSeconds,
+                                    MeterRegistry meterRegistry,
+                                    ReadYourWritesTracker readYourWrites,
+                                    EntityManagerFactory entityManagerFactory) {
         this.userRepository = userRepository;
+        this.userStatusTable = userStatusTable;
+        this.readYourWrites = readYourWrites;
+        this.entityManagerFactory = entityManagerFactory;
+        this.detailsById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.detailsByUserName = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, detailsById, "user.details.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, detailsByUserName, "user.details.by-username");
+        this.lookupByIdTimer = Timer.builder("auth.user.lookup")
+                .description("缓存未命中时加载用户详情的耗时")
+                .tag("key", "id")
+                .register(meterRegistry);
+        this.lookupByUserNameTimer = Timer.builder("auth.user.lookup")
+                .description("缓存未命中时加载用户详情的耗时")
+                .tag("key", "username")
+                .register(meterRegistry);
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // 根据用户名查找用户
-        Optional<UserModel> user = userRepository.findByUserName(username);
-        // 如果找不到用户，抛出异常
-        return user.map(CustomUserDetails::new).orElseThrow(() ->
-                new UsernameNotFoundException("用户未找到: " + username));
+        // 根据用户名查找用户，未命中缓存时由第一个请求加载，其余并发请求等待同一结果
+        CustomUserDetails details = detailsByUserName.get(username,
+                key -> lookupByUserNameTimer.record(() -> readYourWrites.read(key, () -> userRepository.findByUserName(key), Optional::isEmpty)
+                        .map(CustomUserDetails::new).orElse(null)));
+        // 如果找不到用户，抛出异常（不存在的用户不会被缓存）
+        if (details == null) {
+            throw new UsernameNotFoundException("用户未找到: " + username);
+        }
+        return details;
     }
 
     // 新增方法：通过平台用户 ID 加载用户
     public UserDetails loadUserByPlatformUserId(Long platformUserId) throws UsernameNotFoundException {
         // 根据平台用户ID查找用户
-        Optional<UserModel> user = userRepository.findById(platformUserId);
+        CustomUserDetails details = detailsById.get(platformUserId,
+                key -> lookupByIdTimer.record(() -> readYourWrites.read(key, () -> userRepository.findById(key), Optional::isEmpty)
+                        .map(CustomUserDetails::new).orElse(null)));
         // 如果找不到用户，抛出异常
-        return user.map(CustomUserDetails::new).orElseThrow(() ->
-                new UsernameNotFoundException("用户未找到: " + platformUserId));
+        if (details == null) {
+            throw new UsernameNotFoundException("用户未找到: " + platformUserId);
+        }
+        return details;
+    }
+
+    /**
+     * 用户封禁状态变更后调用。
+     */
+    public void onUserBanned(Long platformUserId, boolean banned) {
+        userStatusTable.markBanned(platformUserId, banned);
+        evict(platformUserId);
+    }
+
+    /**
+     * 用户启用状态变更后调用。
+     */
+    public void onUserDisabled(Long platformUserId, boolean disabled) {
+        userStatusTable.markDisabled(platformUserId, disabled);
+        evict(platformUserId);
+    }
+
+    /**
+     * 用户修改密码后调用。
+     */
+    public void onPasswordChanged(Long platformUserId) {
+        evict(platformUserId);
+    }
+
+    /**
+     * 移除某个用户在两个用户详情缓存和二级缓存中的条目。
+     */
+    public void evict(Long platformUserId) {
+        entityManagerFactory.getCache().evict(UserModel.class, platformUserId);
+        CustomUserDetails cached = detailsById.getIfPresent(platformUserId);
+        detailsById.invalidate(platformUserId);
+        if (cached != null) {
+            detailsByUserName.invalidate(cached.getUsername());
+        } else {
+            // 只存在于用户名缓存中的条目需要按 ID 查找
+            detailsByUserName.asMap().values().removeIf(details -> platformUserId.equals(details.getPlatformUserId()));
+        }
+        logger.debug("已清除用户详情缓存: {}", platformUserId);
+    }
+
+    public void evictAll() {
+        entityManagerFactory.getCache().evict(UserModel.class);
+        detailsById.invalidateAll();
+        detailsByUserName.invalidateAll();
     }
 }
@@ -0,0 +1,172 @@
+package com.example.xiuxianloginserver.service;
+
+import com.example.xiuxianloginserver.models.UserModel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录统计（上次登录时间、登录次数、上次登录 IP）的延迟写入。
+ * 登录线程只把本次登录合并进内存缓冲区（每个用户一条，多次登录累加次数、保留最新的时间和 IP），
+ * 后台任务每 flush-interval-ms 取出缓冲区，按用户 ID 排序后分批执行 JDBC batch UPDATE，关闭时再写一次。
+ * 登录路径上没有数据库写入；进程异常退出时最多丢失一个刷新间隔内的统计。
+ *
+ * UPDATE 绕过了 Hibernate，写入后清除 users 区域中对应的二级缓存条目。
+ * 缓冲区达到 max-pending 个用户时，新用户的登录统计直接丢弃并计数，已在缓冲区中的用户照常合并。
+ */
+@Service
+public class LoginStatsRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginStatsRecorder.class);
+
+    // 多个节点各自刷新同一用户时，只有更新的登录时间才覆盖时间和 IP。
+    // MySQL 按顺序执行 SET 子句、后面的子句能看到前面已赋的值，所以 IP 必须在 last_login 之前赋值
+    private static final String UPDATE_SQL = "UPDATE users SET "
+            + "last_login_ip = CASE WHEN last_login IS NULL OR last_login < ? THEN ? ELSE last_login_ip END, "
+            + "last_login = CASE WHEN last_login IS NULL OR last_login < ? THEN ? ELSE last_login END, "
+            + "login_count = login_count + ? "
+            + "WHERE platform_user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean enabled;
+    private final int maxPending;
+    private final int batchSize;
+
+    // 用户 ID -> 尚未写入数据库的登录统计
+    private final Map<Long, PendingLogin> pending = new ConcurrentHashMap<>();
+    private final LongAdder droppedLogins = new LongAdder();
+
+    public LoginStatsRecorder(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              EntityManagerFactory entityManagerFactory,
+                              MeterRegistry meterRegistry,
+                              @Value("${auth.login-stats.enabled:true}") boolean enabled,
+                              @Value("${auth.login-stats.max-pending:200000}") int maxPending,
+                              @Value("${auth.login-stats.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.enabled = enabled;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+
+        Gauge.builder("auth.login-stats.pending", pending, Map::size)
+                .description("等待写入数据库的登录统计条数（按用户合并）")
+                .register(meterRegistry);
+        FunctionCounter.builder("auth.login-stats.dropped", droppedLogins, LongAdder::sum)
+                .description("缓冲区已满而丢弃的登录统计次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次成功登录，只修改内存，可在任意线程调用。
+     *
+     * @param clientIp 客户端 IP，可为 null
+     */
+    public void record(Long platformUserId, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        PendingLogin login = new PendingLogin(System.currentTimeMillis(), 1, clientIp);
+        if (pending.size() >= maxPending && !pending.containsKey(platformUserId)) {
+            droppedLogins.increment();
+            return;
+        }
+        pending.merge(platformUserId, login, PendingLogin::merge);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    public long getDroppedCount() {
+        return droppedLogins.sum();
+    }
+
+    @Scheduled(initialDelayString = "${auth.login-stats.flush-interval-ms:5000}",
+            fixedDelayString = "${auth.login-stats.flush-interval-ms:5000}")
+    public void flush() {
+        if (!enabled || pending.isEmpty()) {
+            return;
+        }
+        // 逐个取出，取出之后到达的登录会重新进入缓冲区，留到下一次刷新
+        List<Map.Entry<Long, PendingLogin>> drained = new ArrayList<>(pending.size());
+        for (Long platformUserId : pending.keySet()) {
+            PendingLogin login = pending.remove(platformUserId);
+            if (login != null) {
+                drained.add(Map.entry(platformUserId, login));
+            }
+        }
+        // 各节点按相同顺序加行锁，避免并发刷新互相死锁
+        drained.sort(Map.Entry.comparingByKey());
+
+        int written = 0;
+        for (int from = 0; from < drained.size(); from += batchSize) {
+            List<Map.Entry<Long, PendingLogin>> batch = drained.subList(from, Math.min(drained.size(), from + batchSize));
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(),
+                        (statement, entry) -> {
+                            Timestamp lastLogin = new Timestamp(entry.getValue().lastLoginMillis());
+                            statement.setTimestamp(1, lastLogin);
+                            statement.setString(2, entry.getValue().clientIp());
+                            statement.setTimestamp(3, lastLogin);
+                            statement.setTimestamp(4, lastLogin);
+                            statement.setInt(5, entry.getValue().count());
+                            statement.setLong(6, entry.getKey());
+                        }));
+                written += batch.size();
+            } catch (Exception e) {
+                // 放回缓冲区，与期间新到的登录合并后下次重试
+                logger.error("写入登录统计失败，{} 条留待下次重试: {}", batch.size(), e.getMessage());
+                batch.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), PendingLogin::merge));
+                continue;
+            }
+            evictCachedUsers(batch);
+        }
+        logger.debug("已写入 {} 个用户的登录统计", written);
+    }
+
+    // 事务提交后再清除，之后的加载读到的都是新值
+    private void evictCachedUsers(List<Map.Entry<Long, PendingLogin>> batch) {
+        Cache cache = entityManagerFactory.getCache();
+        for (Map.Entry<Long, PendingLogin> entry : batch) {
+            cache.evict(UserModel.class, entry.getKey());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            logger.warn("关闭时仍有 {} 个用户的登录统计未能写入", pending.size());
+        }
+    }
+
+    private record PendingLogin(long lastLoginMillis, int count, String clientIp) {
+
+        // 次数累加，时间和 IP 取较新的一次登录
+        PendingLogin merge(PendingLogin other) {
+            PendingLogin latest = other.lastLoginMillis >= lastLoginMillis ? other : this;
+            return new PendingLogin(latest.lastLoginMillis, count + other.count, latest.clientIp);
+        }
+    }
+}
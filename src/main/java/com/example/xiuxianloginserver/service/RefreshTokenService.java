@@ -0,0 +1,120 @@
+package com.example.xiuxianloginserver.service;
+
+import com.example.xiuxianloginserver.exception.InvalidTokenException;
+import com.example.xiuxianloginserver.models.RefreshTokenModel;
+import com.example.xiuxianloginserver.repository.RefreshTokenRepository;
+import com.example.xiuxianloginserver.util.IdGenerator;
+import com.example.xiuxianloginserver.util.TokenHashes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * 刷新令牌服务。
+ * 刷新令牌是随机生成的不透明字符串，数据库中只保存其摘要；每次刷新都会轮换出新令牌，
+ * 一次刷新只需要按摘要主键查询一次、插入一条新记录。
+ * 已被轮换的令牌再次使用时视为重放，整条令牌链会被吊销。
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final IdGenerator idGenerator;
+    private final long ttlMillis;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               IdGenerator idGenerator,
+                               @Value("${auth.refresh-token.ttl-days:30}") long ttlDays) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.idGenerator = idGenerator;
+        this.ttlMillis = Duration.ofDays(ttlDays).toMillis();
+    }
+
+    /**
+     * 登录时签发一条新令牌链的第一个刷新令牌，整条链沿用登录时的会话代号。
+     */
+    public String issue(Long platformUserId, Long sessionGeneration) {
+        String rawToken = TokenHashes.randomToken(TOKEN_BYTES);
+        refreshTokenRepository.save(newRecord(rawToken, null, idGenerator.nextId(), platformUserId, sessionGeneration));
+        return rawToken;
+    }
+
+    /**
+     * 轮换刷新令牌：校验旧令牌并追加一条新记录。
+     *
+     * @throws InvalidTokenException 令牌不存在、已过期、已吊销或被重复使用
+     */
+    public Rotation rotate(String rawToken) {
+        String tokenHash = TokenHashes.sha256Hex(rawToken);
+        RefreshTokenModel current = refreshTokenRepository.findById(tokenHash)
+                .orElseThrow(() -> new InvalidTokenException("刷新令牌无效"));
+
+        if (current.isRevoked()) {
+            throw new InvalidTokenException("刷新令牌已失效");
+        }
+        if (current.getExpiresAt() <= System.currentTimeMillis()) {
+            throw new InvalidTokenException("刷新令牌已过期");
+        }
+
+        String nextToken = TokenHashes.randomToken(TOKEN_BYTES);
+        try {
+            // parentHash 唯一：同一个旧令牌只能成功轮换一次
+            refreshTokenRepository.saveAndFlush(
+                    newRecord(nextToken, tokenHash, current.getFamilyId(), current.getPlatformUserId(), current.getSessionGeneration()));
+        } catch (DataIntegrityViolationException e) {
+            revokeFamily(current.getFamilyId());
+            logger.warn("检测到刷新令牌重放，已吊销令牌链，用户 ID：{}", current.getPlatformUserId());
+            throw new InvalidTokenException("刷新令牌已被使用");
+        }
+        return new Rotation(current.getPlatformUserId(), current.getFamilyId(), current.getSessionGeneration(), nextToken);
+    }
+
+    /**
+     * 登出时吊销刷新令牌所在的整条令牌链，令牌无效时忽略。
+     */
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findById(TokenHashes.sha256Hex(rawToken))
+                .ifPresent(token -> revokeFamily(token.getFamilyId()));
+    }
+
+    public void revokeFamily(Long familyId) {
+        refreshTokenRepository.revokeFamily(familyId);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.refresh-token.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpiredBefore(System.currentTimeMillis());
+        if (deleted > 0) {
+            logger.info("已清理过期刷新令牌 {} 条", deleted);
+        }
+    }
+
+    private RefreshTokenModel newRecord(String rawToken, String parentHash, Long familyId, Long platformUserId,
+                                        Long sessionGeneration) {
+        long now = System.currentTimeMillis();
+        RefreshTokenModel record = new RefreshTokenModel();
+        record.setTokenHash(TokenHashes.sha256Hex(rawToken));
+        record.setParentHash(parentHash);
+        record.setFamilyId(familyId);
+        record.setPlatformUserId(platformUserId);
+        record.setSessionGeneration(sessionGeneration);
+        record.setCreatedAt(now);
+        record.setExpiresAt(now + ttlMillis);
+        return record;
+    }
+
+    /**
+     * 一次轮换的结果。
+     */
+    public record Rotation(Long platformUserId, Long familyId, Long sessionGeneration, String refreshToken) {
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.xiuxianloginserver.service;
+
+import com.example.xiuxianloginserver.models.UserSessionModel;
+import com.example.xiuxianloginserver.repository.UserSessionRepository;
+import com.example.xiuxianloginserver.util.JwtTokenUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单设备登录：每个账号同一时刻只有一个有效的登录。
+ * 每次登录由数据库把 user_sessions 表中该用户的会话代号加一，新代号写入令牌的 sgen 声明；
+ * 代号由数据库行锁串行分配，不依赖各节点的时钟，多个节点同时登录同一账号时后提交的一方代号更大。
+ * 过滤器用内存中的代号表比对，代号不一致的令牌属于被顶替的旧登录，不需要服务端 HttpSession。
+ *
+ * 内存表只保留访问令牌有效期内登录过的用户：更早的登录签发的访问令牌都已过期，
+ * 表中没有记录的用户，其有效令牌必然携带当前代号（或是刷新得到的、代号未变的令牌），直接放行。
+ * 其他节点的登录通过定期增量读取 user_sessions 表同步，同步间隔内旧设备的访问令牌仍可使用；
+ * 刷新令牌时直接查询数据库，不受同步延迟影响。
+ */
+@Service
+public class SessionGenerationRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionGenerationRegistry.class);
+
+    // 同步时回退的毫秒数，覆盖节点间的时钟偏差
+    private static final long CLOCK_SKEW_MILLIS = 60_000L;
+
+    private final UserSessionRepository userSessionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long retentionMillis;
+
+    // 用户 ID -> 当前会话代号及其登录时间
+    private final Map<Long, Generation> generations = new ConcurrentHashMap<>();
+    private volatile long lastSyncMillis;
+
+    public SessionGenerationRegistry(UserSessionRepository userSessionRepository,
+                                     TransactionTemplate transactionTemplate,
+                                     JwtTokenUtil jwtTokenUtil,
+                                     @Value("${auth.single-session.enabled:true}") boolean enabled) {
+        this.userSessionRepository = userSessionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.retentionMillis = jwtTokenUtil.getAccessTokenValiditySeconds() * 1000L + CLOCK_SKEW_MILLIS;
+    }
+
+    /**
+     * 登录成功时调用，顶替该用户之前的所有登录，返回新的会话代号。关闭单设备登录时返回 null。
+     */
+    public Long startSession(Long platformUserId) {
+        if (!enabled) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Long generation = nextGeneration(platformUserId, now);
+        if (generation == null) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> userSessionRepository.insertFirstGeneration(platformUserId, now));
+                generation = 1L;
+            } catch (DataIntegrityViolationException e) {
+                // 其他节点刚插入了第一代，改为在其基础上递增
+                generation = nextGeneration(platformUserId, now);
+                if (generation == null) {
+                    throw e;
+                }
+            }
+        }
+        remember(platformUserId, generation, now);
+        return generation;
+    }
+
+    // 递增并读回代号，更新和读取在同一事务中，行锁保证读到的是本次分配的值；用户还没有记录时返回 null
+    private Long nextGeneration(Long platformUserId, long now) {
+        return transactionTemplate.execute(status -> userSessionRepository.incrementGeneration(platformUserId, now) > 0
+                ? userSessionRepository.findGeneration(platformUserId)
+                : null);
+    }
+
+    /**
+     * 令牌携带的会话代号是否仍是当前代号（只查内存表，过滤器每个请求调用）。
+     * 没有 sgen 声明的旧令牌在用户重新登录后同样视为被顶替。
+     */
+    public boolean isCurrent(Long platformUserId, Long generation) {
+        if (!enabled) {
+            return true;
+        }
+        Generation current = generations.get(platformUserId);
+        return current == null || Objects.equals(current.value(), generation);
+    }
+
+    /**
+     * 以数据库为准判断会话代号是否仍是当前代号，用于刷新令牌。
+     */
+    public boolean isCurrentInStore(Long platformUserId, Long generation) {
+        if (!enabled) {
+            return true;
+        }
+        return userSessionRepository.findById(platformUserId)
+                .map(session -> {
+                    remember(session);
+                    return Objects.equals(session.getGeneration(), generation);
+                })
+                .orElse(true);
+    }
+
+    public int size() {
+        return generations.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<UserSessionModel> sessions = userSessionRepository.findByUpdatedAtGreaterThanEqual(now - retentionMillis);
+        sessions.forEach(this::remember);
+        lastSyncMillis = now;
+        logger.info("已加载会话代号表，共 {} 条", sessions.size());
+    }
+
+    @Scheduled(initialDelayString = "${auth.single-session.sync-interval-ms:2000}",
+            fixedDelayString = "${auth.single-session.sync-interval-ms:2000}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            userSessionRepository.findByUpdatedAtGreaterThanEqual(lastSyncMillis - CLOCK_SKEW_MILLIS)
+                    .forEach(this::remember);
+            lastSyncMillis = now;
+        } catch (Exception e) {
+            logger.error("同步会话代号表失败: {}", e.getMessage());
+        }
+    }
+
+    // 超过访问令牌有效期的登录不再需要比对
+    @Scheduled(fixedDelayString = "${auth.single-session.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        generations.values().removeIf(generation -> generation.updatedAt() < cutoff);
+    }
+
+    private void remember(UserSessionModel session) {
+        remember(session.getPlatformUserId(), session.getGeneration(), session.getUpdatedAt());
+    }
+
+    // 只会用更大的代号覆盖，晚到的同步结果不会回退本节点刚写入的代号
+    private void remember(Long platformUserId, long generation, long updatedAt) {
+        generations.merge(platformUserId, new Generation(generation, updatedAt),
+                (current, candidate) -> candidate.value() > current.value() ? candidate : current);
+    }
+
+    private record Generation(long value, long updatedAt) {
+    }
+}
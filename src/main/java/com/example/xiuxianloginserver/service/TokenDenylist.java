@@ -0,0 +1,133 @@
+package com.example.xiuxianloginserver.service;
+
+import com.example.xiuxianloginserver.models.RevokedTokenModel;
+import com.example.xiuxianloginserver.repository.RevokedTokenRepository;
+import com.example.xiuxianloginserver.security.VerifiedToken;
+import com.example.xiuxianloginserver.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 访问令牌吊销名单（按 jti）。
+ * 过滤器每个请求都会查询：先查布隆过滤器，绝大多数未吊销的令牌几次位运算即可放行；
+ * 布隆过滤器命中时再查精确集合。名单只保留到令牌过期，启动时从 revoked_tokens 表加载，
+ * 运行中定期增量同步其他节点的吊销记录。
+ */
+@Service
+public class TokenDenylist {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenDenylist.class);
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long expectedEntries;
+
+    // jti -> 令牌过期时间
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloomFilter;
+    private volatile long lastSyncMillis;
+
+    public TokenDenylist(RevokedTokenRepository revokedTokenRepository,
+                         @Value("${auth.denylist.expected-entries:100000}") long expectedEntries) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedEntries = expectedEntries;
+        this.bloomFilter = new BloomFilter(expectedEntries, FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * 令牌是否已被吊销。
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null || !bloomFilter.mightContain(jti)) {
+            return false;
+        }
+        return revoked.containsKey(jti);
+    }
+
+    /**
+     * 吊销访问令牌，记录会一直保留到令牌过期。
+     */
+    public void revoke(VerifiedToken token) {
+        if (token.getJti() == null || token.isExpired()) {
+            return;
+        }
+        RevokedTokenModel record = new RevokedTokenModel();
+        record.setJti(token.getJti());
+        record.setPlatformUserId(token.getPlatformUserId());
+        record.setExpiresAt(token.getExpirationMillis());
+        record.setRevokedAt(System.currentTimeMillis());
+        // 直接 INSERT，同一令牌并发或重复登出时由主键冲突判定已吊销，不先查询再写入
+        try {
+            revokedTokenRepository.saveAndFlush(record);
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("访问令牌已在吊销名单中，jti：{}", token.getJti());
+        }
+        add(record.getJti(), record.getExpiresAt());
+        logger.info("访问令牌已吊销，用户 ID：{}，jti：{}", token.getPlatformUserId(), token.getJti());
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long now = System.currentTimeMillis();
+        List<RevokedTokenModel> records = revokedTokenRepository.findByExpiresAtGreaterThan(now);
+        records.forEach(record -> add(record.getJti(), record.getExpiresAt()));
+        lastSyncMillis = now;
+        logger.info("已加载令牌吊销名单，共 {} 条", records.size());
+    }
+
+    @Scheduled(initialDelayString = "${auth.denylist.sync-interval-ms:5000}",
+            fixedDelayString = "${auth.denylist.sync-interval-ms:5000}")
+    public void sync() {
+        try {
+            long now = System.currentTimeMillis();
+            // 回退一段时间以覆盖节点间的时钟偏差，重复记录会被忽略
+            for (RevokedTokenModel record : revokedTokenRepository.findByRevokedAtGreaterThanEqual(lastSyncMillis - 60_000L)) {
+                if (!revoked.containsKey(record.getJti())) {
+                    add(record.getJti(), record.getExpiresAt());
+                }
+            }
+            lastSyncMillis = now;
+        } catch (Exception e) {
+            logger.error("同步令牌吊销名单失败: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.denylist.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        rebuildBloomFilter();
+        try {
+            revokedTokenRepository.deleteExpiredBefore(now);
+        } catch (Exception e) {
+            logger.error("清理过期吊销记录失败: {}", e.getMessage());
+        }
+    }
+
+    // 写操作很少，加锁保证重建布隆过滤器时不会漏掉并发加入的 jti；读操作不加锁
+    private synchronized void add(String jti, long expiresAt) {
+        revoked.put(jti, expiresAt);
+        bloomFilter.put(jti);
+    }
+
+    private synchronized void rebuildBloomFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2L), FALSE_POSITIVE_RATE);
+        revoked.keySet().forEach(rebuilt::put);
+        bloomFilter = rebuilt;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.xiuxianloginserver.service;
+
+import com.example.xiuxianloginserver.repository.UserRepository;
+import com.example.xiuxianloginserver.repository.UserStatusView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存中的用户状态表，只记录被禁用或被封禁的用户。
+ * 无状态认证模式下由过滤器直接查询，避免每个请求都读取完整的 UserModel；未开启无状态模式时不加载也不刷新。
+ * 表内容定期从数据库整体刷新，本节点上的状态变更通过 mark* 方法立即生效；
+ * 刷新期间发生的变更会在替换前重放到新表上，不会被刷新前读取的数据覆盖。
+ */
+@Component
+public class UserStatusTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserStatusTable.class);
+
+    private static final byte DISABLED = 1;
+    private static final byte BANNED = 1 << 1;
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+
+    // 只保存受限用户，正常用户不占用空间
+    private volatile Map<Long, Byte> restrictedUsers = new ConcurrentHashMap<>();
+
+    // mark* 与刷新结束时的重放、替换互斥；状态变更很少，查询不加锁
+    private final Object markLock = new Object();
+    // 本次刷新开始后的状态变更，不在刷新中时为 null
+    private List<Mark> marksDuringRefresh;
+
+    public UserStatusTable(UserRepository userRepository,
+                           @Value("${auth.stateless.enabled:false}") boolean enabled) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 用户是否被禁用或封禁。
+     */
+    public boolean isRestricted(Long platformUserId) {
+        return restrictedUsers.containsKey(platformUserId);
+    }
+
+    public void markBanned(Long platformUserId, boolean banned) {
+        update(platformUserId, BANNED, banned);
+    }
+
+    public void markDisabled(Long platformUserId, boolean disabled) {
+        update(platformUserId, DISABLED, disabled);
+    }
+
+    public int size() {
+        return restrictedUsers.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${auth.status-table.refresh-interval-ms:60000}",
+            fixedDelayString = "${auth.status-table.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (markLock) {
+            marksDuringRefresh = new ArrayList<>();
+        }
+        try {
+            Map<Long, Byte> loaded = new ConcurrentHashMap<>();
+            for (UserStatusView view : userRepository.findRestrictedUsers()) {
+                byte flags = 0;
+                if (!view.isEnabled()) {
+                    flags |= DISABLED;
+                }
+                if (view.isBanned()) {
+                    flags |= BANNED;
+                }
+                loaded.put(view.getPlatformUserId(), flags);
+            }
+            synchronized (markLock) {
+                // 查询期间的变更可能不在查询结果中，重放后再替换
+                for (Mark mark : marksDuringRefresh) {
+                    apply(loaded, mark);
+                }
+                restrictedUsers = loaded;
+            }
+            logger.debug("用户状态表已刷新，受限用户数：{}", loaded.size());
+        } catch (Exception e) {
+            // 刷新失败时保留上一次的状态表
+            logger.error("刷新用户状态表失败: {}", e.getMessage());
+        } finally {
+            synchronized (markLock) {
+                marksDuringRefresh = null;
+            }
+        }
+    }
+
+    private void update(Long platformUserId, byte flag, boolean set) {
+        if (!enabled) {
+            return;
+        }
+        Mark mark = new Mark(platformUserId, flag, set);
+        synchronized (markLock) {
+            apply(restrictedUsers, mark);
+            if (marksDuringRefresh != null) {
+                marksDuringRefresh.add(mark);
+            }
+        }
+    }
+
+    private static void apply(Map<Long, Byte> table, Mark mark) {
+        table.compute(mark.platformUserId(), (id, current) -> {
+            byte flags = current == null ? 0 : current;
+            flags = (byte) (mark.set() ? flags | mark.flag() : flags & ~mark.flag());
+            return flags == 0 ? null : flags;
+        });
+    }
+
+    private record Mark(Long platformUserId, byte flag, boolean set) {
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.xiuxianloginserver.service;
+
+import com.example.xiuxianloginserver.util.SnowflakeIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 雪花 ID 机器号租约。每个节点启动时从 worker_id_leases 表中租用一个未被占用（或租约已过期）的机器 ID，
+ * 之后定期续约；节点宕机后租约自然过期，机器 ID 可被其他节点接手。
+ * 租用和续约都是带条件的单行 UPDATE/INSERT，由数据库保证同一时刻一个机器 ID 只属于一个节点。
+ * 租约表由实体 WorkerIdLeaseModel 定义，必须在表建好之后再调用 start。
+ * 续约失败（例如数据库暂时不可用）时不会立即停止，ID 生成器在租约到期前停止生成；
+ * 发现租约已被其他节点接手时，立即改租新的机器 ID。
+ */
+public class WorkerIdLeaser {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerIdLeaser.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SnowflakeIdGenerator generator;
+    private final String owner;
+    private final long leaseTtlMillis;
+    private final long renewIntervalMillis;
+    private final long clockSkewMillis;
+    private final LongSupplier clock;
+
+    private ScheduledExecutorService scheduler;
+    private volatile int workerId = -1;
+
+    public WorkerIdLeaser(JdbcTemplate jdbcTemplate, SnowflakeIdGenerator generator, String owner,
+                          long leaseTtlMillis, long renewIntervalMillis, long clockSkewMillis, LongSupplier clock) {
+        if (renewIntervalMillis * 2 > leaseTtlMillis) {
+            throw new IllegalArgumentException("lease TTL must be at least twice the renew interval");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.generator = generator;
+        this.owner = owner;
+        this.leaseTtlMillis = leaseTtlMillis;
+        this.renewIntervalMillis = renewIntervalMillis;
+        this.clockSkewMillis = clockSkewMillis;
+        this.clock = clock;
+    }
+
+    public void start() {
+        acquire();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "worker-id-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::renew, renewIntervalMillis, renewIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (workerId < 0) {
+            return;
+        }
+        try {
+            // 记录最后使用的时间戳并立即释放，接手的节点会从该时间戳之后开始生成
+            jdbcTemplate.update("UPDATE worker_id_leases SET expires_at = 0, last_timestamp = ? WHERE worker_id = ? AND owner = ?",
+                    generator.getLastTimestampMillis(), workerId, owner);
+            logger.info("已释放机器 ID 租约：{}", workerId);
+        } catch (DataAccessException e) {
+            logger.warn("释放机器 ID 租约失败，等待其自然过期: {}", e.getMessage());
+        }
+    }
+
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 租用一个机器 ID：优先接手已过期的租约，否则插入一个尚未使用过的机器 ID。
+     */
+    synchronized void acquire() {
+        long now = clock.getAsLong();
+        long expiresAt = now + leaseTtlMillis;
+
+        List<long[]> expired = jdbcTemplate.query(
+                "SELECT worker_id, last_timestamp FROM worker_id_leases WHERE expires_at < ? ORDER BY worker_id",
+                (rs, rowNum) -> new long[]{rs.getInt(1), rs.getLong(2)}, now);
+        for (long[] lease : expired) {
+            int candidate = (int) lease[0];
+            int updated = jdbcTemplate.update(
+                    "UPDATE worker_id_leases SET owner = ?, expires_at = ? WHERE worker_id = ? AND expires_at < ?",
+                    owner, expiresAt, candidate, now);
+            if (updated == 1) {
+                generator.advancePast(lease[1]);
+                assign(candidate, expiresAt);
+                return;
+            }
+        }
+
+        Set<Integer> used = new HashSet<>(jdbcTemplate.queryForList("SELECT worker_id FROM worker_id_leases", Integer.class));
+        for (int candidate = 0; candidate <= SnowflakeIdGenerator.MAX_WORKER_ID; candidate++) {
+            if (used.contains(candidate)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.update("INSERT INTO worker_id_leases (worker_id, owner, expires_at, last_timestamp) VALUES (?, ?, ?, 0)",
+                        candidate, owner, expiresAt);
+                assign(candidate, expiresAt);
+                return;
+            } catch (DuplicateKeyException e) {
+                // 其他节点同时插入了这个机器 ID，继续尝试下一个
+            }
+        }
+        throw new IllegalStateException("No free Snowflake worker ID, all " + (SnowflakeIdGenerator.MAX_WORKER_ID + 1) + " are leased");
+    }
+
+    synchronized void renew() {
+        try {
+            long now = clock.getAsLong();
+            long expiresAt = now + leaseTtlMillis;
+            int updated = jdbcTemplate.update(
+                    "UPDATE worker_id_leases SET expires_at = ?, last_timestamp = ? WHERE worker_id = ? AND owner = ?",
+                    expiresAt, generator.getLastTimestampMillis(), workerId, owner);
+            if (updated == 1) {
+                generator.assignWorker(workerId, expiresAt - clockSkewMillis);
+                return;
+            }
+            logger.error("机器 ID {} 的租约已被其他节点接手，重新租用", workerId);
+            acquire();
+        } catch (RuntimeException e) {
+            logger.warn("机器 ID 租约续期失败: {}", e.getMessage());
+        }
+    }
+
+    private void assign(int candidate, long expiresAt) {
+        workerId = candidate;
+        generator.assignWorker(candidate, expiresAt - clockSkewMillis);
+        logger.info("已租用雪花 ID 机器号：{}，节点：{}", candidate, owner);
+    }
+}
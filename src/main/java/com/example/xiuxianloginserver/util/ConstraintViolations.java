@@ -0,0 +1,30 @@
+package com.example.xiuxianloginserver.util;
+
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.util.Locale;
+
+/**
+ * 判断数据库写入失败是否由指定约束引起。
+ */
+public final class ConstraintViolations {
+
+    private ConstraintViolations() {
+    }
+
+    /**
+     * 沿异常链查找 Hibernate 的 ConstraintViolationException，比较其约束名。
+     * 各数据库报告的约束名格式不同（MySQL 为 表名.约束名，H2 为大写的 模式.约束名_INDEX_n ...），按不区分大小写的包含关系比较。
+     *
+     * @param constraintName 约束名，小写
+     */
+    public static boolean isViolationOf(Throwable failure, String constraintName) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String violated = violation.getConstraintName();
+                return violated != null && violated.toLowerCase(Locale.ROOT).contains(constraintName);
+            }
+        }
+        return false;
+    }
+}
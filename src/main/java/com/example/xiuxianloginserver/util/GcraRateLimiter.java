@@ -0,0 +1,71 @@
+package com.example.xiuxianloginserver.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 基于 GCRA（通用信元速率算法）的令牌桶限流器，按键独立计数。
+ * 每个键只保存一个“理论到达时间”（TAT），用 CAS 更新，整个判断过程无锁、无分配；
+ * 键存放在有界的 Caffeine 缓存中，长时间不访问的键自动淘汰，不会因为大量随机用户名或 IP 撑爆内存。
+ */
+public final class GcraRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoClock;
+    private final Cache<String, AtomicLong> buckets;
+
+    /**
+     * @param burst     桶容量，即空闲后允许连续通过的次数
+     * @param period    每恢复一次额度所需的时间
+     * @param maxKeys   最多同时跟踪的键数
+     * @param nanoClock 单调时钟（纳秒），测试时可替换
+     */
+    public GcraRateLimiter(int burst, Duration period, long maxKeys, LongSupplier nanoClock) {
+        if (burst < 1 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("burst must be >= 1 and period must be positive");
+        }
+        this.emissionIntervalNanos = period.toNanos();
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.nanoClock = nanoClock;
+        // 桶完全恢复后就和新建的桶没有区别，此后可以安全淘汰
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(emissionIntervalNanos + burstToleranceNanos, TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    public GcraRateLimiter(int burst, Duration period, long maxKeys) {
+        this(burst, period, maxKeys, System::nanoTime);
+    }
+
+    /**
+     * 尝试消耗一次额度。
+     *
+     * @return 0 表示放行；大于 0 表示被拒绝，值为需要等待的纳秒数
+     */
+    public long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong tat = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = tat.get();
+            long base = Math.max(current, now);
+            long waitNanos = base - now - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (tat.compareAndSet(current, base + emissionIntervalNanos)) {
+                return 0L;
+            }
+        }
+    }
+
+    public long trackedKeys() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.xiuxianloginserver.util;
+
+/**
+ * 全局唯一 ID 生成器，用于平台用户 ID、刷新令牌链 ID 等。
+ */
+public interface IdGenerator {
+
+    long nextId();
+}
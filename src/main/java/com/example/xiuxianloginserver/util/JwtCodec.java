@@ -0,0 +1,111 @@
+package com.example.xiuxianloginserver.util;
+
+import com.example.xiuxianloginserver.config.JwtProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JWT 编解码器，启动时一次性构建密钥环和解析器。
+ * 签名与验签使用同一组密钥；解析时按令牌头中的 kid 直接定位密钥，支持多把密钥同时生效以便轮换。
+ * 所有字段在构造后不可变，可被多个线程共享。
+ */
+@Component
+public class JwtCodec {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtCodec.class);
+
+    private static final SignatureAlgorithm ALGORITHM = SignatureAlgorithm.HS512;
+
+    private final Map<String, SecretKey> keyRing;
+    private final String activeKid;
+    private final SecretKey activeKey;
+    private final JwtParser parser;
+
+    public JwtCodec(JwtProperties properties) {
+        if (properties.getKeys().isEmpty()) {
+            throw new IllegalStateException("jwt.keys must contain at least one signing key");
+        }
+
+        Map<String, SecretKey> keys = new HashMap<>();
+        properties.getKeys().forEach((kid, secret) -> {
+            SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+            if (key.getEncoded().length * 8 < ALGORITHM.getMinKeyLength()) {
+                throw new IllegalStateException("JWT key '" + kid + "' is too short for " + ALGORITHM);
+            }
+            keys.put(kid, key);
+        });
+        this.keyRing = Map.copyOf(keys);
+
+        this.activeKid = properties.getActiveKid();
+        this.activeKey = keyRing.get(activeKid);
+        if (activeKey == null) {
+            throw new IllegalStateException("jwt.active-kid '" + activeKid + "' is not present in jwt.keys");
+        }
+
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    // jjwt 0.11 的 SigningKeyResolver 接口声明的就是原始类型，写成 JwsHeader<?> 无法覆盖
+                    @Override
+                    @SuppressWarnings("rawtypes")
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolveKey(header.getKeyId());
+                    }
+                })
+                .build();
+
+        logger.info("JWT key ring loaded, kids: {}, active kid: {}", keyRing.keySet(), activeKid);
+    }
+
+    /**
+     * 使用当前生效的密钥签发令牌，并在令牌头中写入 kid。
+     */
+    public String sign(Map<String, Object> claims, String subject, Date issuedAt, Date expiration) {
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, activeKid)
+                .setClaims(claims)
+                .setSubject(subject)
+                .setIssuedAt(issuedAt)
+                .setExpiration(expiration)
+                .signWith(activeKey, ALGORITHM)
+                .compact();
+    }
+
+    /**
+     * 验签并解析令牌声明，异常由调用方按 JwtException 体系处理。
+     */
+    public Claims parse(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    private Key resolveKey(String kid) {
+        // 不带 kid 的令牌按当前生效密钥处理
+        if (kid == null) {
+            return activeKey;
+        }
+        SecretKey key = keyRing.get(kid);
+        if (key == null) {
+            throw new SignatureException("Unknown JWT key id: " + kid);
+        }
+        return key;
+    }
+}
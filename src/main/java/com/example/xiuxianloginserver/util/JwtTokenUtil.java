@@ -1,48 +1,175 @@
 package com.example.xiuxianloginserver.util;
 
+import cn.hutool.core.util.IdUtil;
+import com.example.xiuxianloginserver.exception.AuthErrorCode;
 import com.example.xiuxianloginserver.exception.JwtAuthenticationException;
 import com.example.xiuxianloginserver.security.CustomUserDetails;
+import com.example.xiuxianloginserver.security.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
-import io.jsonwebtoken.security.Keys;
-import java.security.Key;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
 public class JwtTokenUtil {
     private static final long JWT_TOKEN_VALIDITY = 1000 * 60 * 60 * 10;
 
-    private String secret = "hmx5myP5zY4WOdZtdVIfv/VHJYLeWkwUpppNVTR+tmPEs2EFGlLpp65DdZB6PINFTlyVaLQ3sFzJZxKxAhMpbg==";
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenUtil.class);
 
+    private final JwtCodec jwtCodec;
+
+    // 已验签令牌缓存：以令牌摘要为键，条目在令牌 exp 到达时自动失效
+    private final Cache<String, VerifiedToken> verifiedTokenCache;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer signTimer;
+    // 验签计时器按结果分开，成功和未预期异常的计时器预先创建，各错误码的计时器首次出现时创建
+    private final Timer verifyValidTimer;
+    private final Timer verifyErrorTimer;
+    private final Map<AuthErrorCode, Timer> verifyRejectedTimers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public JwtTokenUtil(JwtCodec jwtCodec, @Value("${jwt.verified-cache.max-size:100000}") long verifiedCacheMaxSize,
+                        MeterRegistry meterRegistry) {
+        this.jwtCodec = jwtCodec;
+        this.meterRegistry = meterRegistry;
+        this.signTimer = Timer.builder("auth.jwt.sign")
+                .description("签发 JWT 的耗时")
+                .register(meterRegistry);
+        this.verifyValidTimer = verifyTimer("valid");
+        this.verifyErrorTimer = verifyTimer("error");
+        this.verifiedTokenCache = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .recordStats()
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        long remainingMillis = value.getExpirationMillis() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0L));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        // 命中率、驱逐数等缓存指标（cache.gets{cache="jwt.verified"} 等）
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokenCache, "jwt.verified");
+    }
+
     public String generateToken(Long platformUserId, String authType, String name) {
         return generateToken(platformUserId, authType, name, null);  // 调用重载的 generateToken 方法
     }
 
 
     public String generateToken(Long platformUserId, String authType, String name, String platformGlobalId) {
+        return generateToken(platformUserId, authType, name, platformGlobalId, null);
+    }
+
+    /**
+     * @param sessionGeneration 会话代号（sgen 声明），为空时不写入
+     */
+    public String generateToken(Long platformUserId, String authType, String name, String platformGlobalId, Long sessionGeneration) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("authType", authType);
         claims.put("platformUserId", platformUserId);
         claims.put("name", name);
+        claims.put(Claims.ID, IdUtil.fastSimpleUUID());  // jti，用于单个令牌的吊销
         if (platformGlobalId != null) {
             claims.put("platformGlobalId", platformGlobalId);
         }
+        if (sessionGeneration != null) {
+            claims.put(VerifiedToken.SESSION_GENERATION_CLAIM, sessionGeneration);
+        }
         logger.debug("Generating token with claims: {}", claims);
         return doGenerateToken(claims, platformUserId.toString());
     }
 
+    /**
+     * 解析并验签令牌，同一个令牌在过期前只会真正验签一次。
+     *
+     * @throws JwtAuthenticationException 令牌过期、签名无效或格式错误
+     */
+    public VerifiedToken verify(String token) {
+        // 缓存键使用令牌的 SHA-256 摘要，避免在内存中长期保存完整令牌
+        String digest = TokenHashes.sha256Hex(token);
+        VerifiedToken cached = verifiedTokenCache.getIfPresent(digest);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return cached;
+            }
+            verifiedTokenCache.invalidate(digest);
+        }
+
+        // 只统计真正解析和验签的耗时，按结果区分（valid、token_expired、invalid_signature 等）
+        long started = System.nanoTime();
+        Timer timer = verifyValidTimer;
+        VerifiedToken verified;
+        try {
+            verified = new VerifiedToken(parseClaims(token));
+        } catch (JwtAuthenticationException e) {
+            timer = verifyRejectedTimer(e.getErrorCode());
+            throw e;
+        } catch (RuntimeException e) {
+            timer = verifyErrorTimer;
+            throw e;
+        } finally {
+            timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        verifiedTokenCache.put(digest, verified);
+        return verified;
+    }
+
+    private Timer verifyRejectedTimer(AuthErrorCode errorCode) {
+        Timer timer = verifyRejectedTimers.get(errorCode);
+        if (timer == null) {
+            timer = verifyRejectedTimers.computeIfAbsent(errorCode,
+                    code -> verifyTimer(code.name().toLowerCase(Locale.ROOT)));
+        }
+        return timer;
+    }
+
+    private Timer verifyTimer(String outcome) {
+        return Timer.builder("auth.jwt.verify")
+                .description("解析并验签 JWT 的耗时（不含缓存命中）")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
     public Boolean validateToken(String token, UserDetails userDetails) {
+        return validateToken(verify(token), userDetails);
+    }
+
+    /**
+     * 基于已验签的令牌校验用户身份和有效期，不再重复解析令牌。
+     */
+    public Boolean validateToken(VerifiedToken token, UserDetails userDetails) {
         try {
             // 从 token 中提取用户名 (或其他标识符)
-            final Long platformUserId = getPlatformUserIdFromToken(token);
+            final Long platformUserId = token.getPlatformUserId();
 
             // 验证从 token 中提取的用户名与传入的用户详情中的用户名是否一致
             if (platformUserId == null || !platformUserId.equals(((CustomUserDetails) userDetails).getPlatformUserId())) {
@@ -50,7 +177,7 @@ public class JwtTokenUtil {
             }
 
             // 验证 token 是否过期
-            if (isTokenExpired(token)) {
+            if (token.isExpired()) {
                 throw new ExpiredJwtException(null, null, "Token has expired");
             }
 
@@ -80,23 +207,23 @@ public class JwtTokenUtil {
 
     public String getAuthTypeFromToken(String token) {
         logger.debug("Extracting authType from token: {}", token);
-        return getClaimFromToken(token, claims -> claims.get("authType", String.class));
+        return verify(token).getAuthType();
     }
 
     public Long getPlatformUserIdFromToken(String token) {
         logger.debug("Extracting platformUserId from token: {}", token);
-        return getClaimFromToken(token, claims -> claims.get("platformUserId", Long.class));
+        return verify(token).getPlatformUserId();
     }
 
 
     public String getPlatformGlobalIdFromToken(String token) {
         logger.debug("Extracting platformGlobalId from token: {}", token);
-        return getClaimFromToken(token, claims -> claims.get("platformGlobalId", String.class));
+        return verify(token).getPlatformGlobalId();
     }
 
     public String getNameFromToken(String token) {
         logger.debug("Extracting name from token: {}", token);
-        return getClaimFromToken(token, claims -> claims.get("name", String.class));
+        return verify(token).getName();
     }
 
     private String doGenerateToken(Map<String, Object> claims, String subject) {
@@ -106,51 +233,38 @@ public class JwtTokenUtil {
 
         logger.debug("Generating JWT token for subject: {}, issued at: {}, expires at: {}", subject, issuedAt, expiration);
 
-        return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(issuedAt)
-                .setExpiration(expiration)  // 10 hours
-                .signWith(SignatureAlgorithm.HS512, secret)
-                .compact();
+        return signTimer.record(() -> jwtCodec.sign(claims, subject, issuedAt, expiration));  // 10 hours
     }
 
 
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        logger.debug("Checking if token is expired: {}, expiration: {}", token, expiration);
-        return expiration.before(new Date());
-    }
-
     public Date getExpirationDateFromToken(String token) {
         logger.debug("Extracting expiration date from token: {}", token);
-        return getClaimFromToken(token, Claims::getExpiration);
+        return verify(token).getExpiration();
     }
 
     public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
+        return claimsResolver.apply(verify(token).getClaims());
+    }
+
+    private Claims parseClaims(String token) {
         try {
             logger.debug("Parsing claims from token: {}", token);
 
-            // 将你的 secret 转换为 HMAC-SHA 密钥
-            Key key = Keys.hmacShaKeyFor(secret.getBytes());
-
-            final Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(key) // 使用 HMAC-SHA 密钥进行签名验证
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            // 使用预构建的解析器，按令牌头中的 kid 选择验签密钥
+            final Claims claims = jwtCodec.parse(token);
 
             logger.debug("Token iat: {}, exp: {}", claims.getIssuedAt(), claims.getExpiration());
-            return claimsResolver.apply(claims);
+            return claims;
         } catch (ExpiredJwtException e) {
-            logger.error("Token has expired: {}", e.getMessage());
-            throw new JwtAuthenticationException("Token has expired", e); // 使用自定义异常类
-        } catch (SecurityException e) {
-            logger.error("Invalid JWT signature: {}", e.getMessage());
-            throw new JwtAuthenticationException("Invalid JWT signature", e); // 使用自定义异常类
+            logger.debug("Token has expired: {}", e.getMessage());
+            throw new JwtAuthenticationException(AuthErrorCode.TOKEN_EXPIRED, e); // 使用自定义异常类
+        } catch (io.jsonwebtoken.security.SecurityException e) {
+            // jjwt 的签名异常（包括未知 kid），不是 java.lang.SecurityException
+            logger.debug("Invalid JWT signature: {}", e.getMessage());
+            throw new JwtAuthenticationException(AuthErrorCode.INVALID_SIGNATURE, e); // 使用自定义异常类
         } catch (JwtException e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
-            throw new JwtAuthenticationException("Invalid JWT token", e); // 使用自定义异常类
+            logger.debug("Invalid JWT token: {}", e.getMessage());
+            throw new JwtAuthenticationException(AuthErrorCode.INVALID_TOKEN, e); // 使用自定义异常类
         } catch (Exception e) {
             logger.error("Error parsing token: {}", e.getMessage());
             throw new RuntimeException("Invalid JWT token", e); // 可以自定义异常类型
@@ -160,6 +274,13 @@ public class JwtTokenUtil {
 
 
     public String getUsernameFromToken(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
+        return verify(token).getSubject();
+    }
+
+    /**
+     * 访问令牌有效期（秒）。
+     */
+    public long getAccessTokenValiditySeconds() {
+        return JWT_TOKEN_VALIDITY / 1000;
     }
 }
@@ -0,0 +1,141 @@
+package com.example.xiuxianloginserver.util;
+
+import com.example.xiuxianloginserver.exception.ServiceBusyException;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 雪花 ID 生成器，位布局与 hutool Snowflake 一致（41 位时间戳 + 10 位机器 ID + 12 位序列号，起始时间 2010-11-04），
+ * 已有的用户 ID 与新生成的 ID 不会冲突。
+ *
+ * 时间戳和序列号打包在一个 AtomicLong 中，用 CAS 推进，多线程生成不加锁；序列号用完时直接进位到下一毫秒，
+ * 时钟回拨时沿用上次的时间戳继续递增。超前真实时间太多时短暂等待，保证重启后不会与自己之前生成的 ID 重复。
+ *
+ * 机器 ID 由 WorkerIdLeaser 从租约表中分配，租约过期后停止生成，防止与接手该机器 ID 的节点冲突。
+ * 可选按线程预分配号段：每个线程一次取 blockSize 个序列号，之后在本线程内分配，完全不竞争；
+ * 号段在线程结束时未用完的部分会被丢弃，因此不适合与虚拟线程（每个请求一个线程）一起使用。
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    public static final long EPOCH = 1288834974657L;
+    public static final int WORKER_ID_BITS = 10;
+    public static final int MAX_WORKER_ID = (1 << WORKER_ID_BITS) - 1;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = WORKER_ID_BITS + SEQUENCE_BITS;
+
+    // 允许逻辑时间超前真实时间的最大毫秒数
+    private static final long MAX_BORROW_MILLIS = 1000L;
+
+    private final LongSupplier clock;
+    private final int blockSize;
+    // 高位是相对 EPOCH 的毫秒数，低 12 位是序列号
+    private final AtomicLong state = new AtomicLong();
+    private final ThreadLocal<long[]> blocks;
+
+    private volatile long workerBits = -1L;
+    private volatile long leaseValidUntil;
+    // 机器 ID 变化或时间戳被推进时递增，使各线程已预分配的号段作废
+    private volatile long blockGeneration;
+
+    public SnowflakeIdGenerator(int blockSize, LongSupplier clock) {
+        if (blockSize < 1 || blockSize > SEQUENCE_MASK + 1) {
+            throw new IllegalArgumentException("blockSize must be between 1 and " + (SEQUENCE_MASK + 1));
+        }
+        this.blockSize = blockSize;
+        this.clock = clock;
+        // 每个线程的号段：[下一个打包值, 号段结束（不含）, 号段所属的代]
+        this.blocks = blockSize > 1 ? ThreadLocal.withInitial(() -> new long[]{0L, 0L, -1L}) : null;
+    }
+
+    public SnowflakeIdGenerator(int blockSize) {
+        this(blockSize, System::currentTimeMillis);
+    }
+
+    /**
+     * 设置机器 ID 及其租约的有效期，租约续期或换用新的机器 ID 时调用。
+     */
+    public void assignWorker(int workerId, long validUntilMillis) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId out of range: " + workerId);
+        }
+        long bits = (long) workerId << SEQUENCE_BITS;
+        if (bits != workerBits) {
+            blockGeneration++;
+        }
+        this.workerBits = bits;
+        this.leaseValidUntil = validUntilMillis;
+    }
+
+    /**
+     * 保证之后生成的 ID 时间戳大于 lastTimestampMillis。接手其他节点刚释放的机器 ID 时，
+     * 用租约表中记录的对方最后时间戳调用，避免对方超前借用的时间与本节点重叠。
+     */
+    public void advancePast(long lastTimestampMillis) {
+        long floor = (lastTimestampMillis - EPOCH + 1) << SEQUENCE_BITS;
+        state.accumulateAndGet(floor, Math::max);
+        blockGeneration++;
+    }
+
+    /**
+     * 已分配出去的最大时间戳（毫秒），释放租约时记录到租约表。
+     */
+    public long getLastTimestampMillis() {
+        return (state.get() >>> SEQUENCE_BITS) + EPOCH;
+    }
+
+    public int getWorkerId() {
+        return (int) (workerBits >> SEQUENCE_BITS);
+    }
+
+    @Override
+    public long nextId() {
+        long worker = workerBits;
+        if (worker < 0 || clock.getAsLong() >= leaseValidUntil) {
+            throw new ServiceBusyException("ID 生成器暂不可用，请稍后重试", 1);
+        }
+        long packed = blocks != null ? nextFromBlock() : reserve(1);
+        return (packed >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT | worker | (packed & SEQUENCE_MASK);
+    }
+
+    private long nextFromBlock() {
+        long[] block = blocks.get();
+        long generation = blockGeneration;
+        if (block[0] >= block[1] || block[2] != generation) {
+            long start = reserve(blockSize);
+            block[0] = start;
+            block[1] = start + blockSize;
+            block[2] = generation;
+        }
+        return block[0]++;
+    }
+
+    /**
+     * 预留 count 个连续的打包值，返回第一个。号段不跨越毫秒边界，序列号不会溢出到时间戳之外。
+     */
+    private long reserve(int count) {
+        while (true) {
+            long now = clock.getAsLong() - EPOCH;
+            long current = state.get();
+            long currentMillis = current >>> SEQUENCE_BITS;
+            long start;
+            if (now > currentMillis) {
+                start = now << SEQUENCE_BITS;
+            } else {
+                start = current;
+                if ((start & SEQUENCE_MASK) + count > SEQUENCE_MASK + 1) {
+                    // 本毫秒剩余的序列号不够，进位到下一毫秒
+                    start = (currentMillis + 1) << SEQUENCE_BITS;
+                }
+                if ((start >>> SEQUENCE_BITS) - now > MAX_BORROW_MILLIS) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+            }
+            if (state.compareAndSet(current, start + count)) {
+                return start;
+            }
+        }
+    }
+}
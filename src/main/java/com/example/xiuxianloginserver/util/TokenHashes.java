@@ -0,0 +1,40 @@
+package com.example.xiuxianloginserver.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * 令牌摘要与随机令牌生成工具。
+ */
+public final class TokenHashes {
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private TokenHashes() {
+    }
+
+    /**
+     * 计算令牌的 SHA-256 摘要（64 位十六进制字符串）。
+     */
+    public static String sha256Hex(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * 生成不透明的随机令牌（URL 安全的 Base64 编码）。
+     */
+    public static String randomToken(int byteLength) {
+        byte[] bytes = new byte[byteLength];
+        SECURE_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.xiuxianloginserver.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AuditLogTest {
+
+    /**
+     * 多个生产者并发写入，单个消费者按发布顺序读出全部事件；缓冲区满时丢弃而不是阻塞
+     */
+    @Test
+    public void testRingBufferMultipleProducers() throws Exception {
+        AuditRingBuffer ringBuffer = new AuditRingBuffer(1 << 16);
+        int producers = 4;
+        int perProducer = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long userId = p + 1;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    assertTrue(ringBuffer.offer(i, AuditEventType.LOGIN_SUCCESS, userId, null, null));
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long[] lastSeen = new long[producers + 1];
+        Arrays.fill(lastSeen, -1);
+        int total = ringBuffer.drain((ts, type, userId, ip, detail) -> {
+            // 同一生产者的事件保持顺序
+            assertEquals(lastSeen[(int) userId] + 1, ts);
+            lastSeen[(int) userId] = ts;
+        }, Integer.MAX_VALUE);
+        assertEquals(producers * perProducer, total);
+
+        AuditRingBuffer small = new AuditRingBuffer(2);
+        assertTrue(small.offer(1, AuditEventType.LOGOUT, 1, null, null));
+        assertTrue(small.offer(2, AuditEventType.LOGOUT, 1, null, null));
+        assertFalse(small.offer(3, AuditEventType.LOGOUT, 1, null, null));
+        assertEquals(1, small.getDroppedCount());
+    }
+
+    /**
+     * 消费者等待事件时挂起，生产者发布后立即被唤醒，而不是等到超时
+     */
+    @Test
+    public void testConsumerIsWokenByOffer() throws Exception {
+        AuditRingBuffer ringBuffer = new AuditRingBuffer(16);
+        CountDownLatch waiting = new CountDownLatch(1);
+        long[] waitedNanos = new long[1];
+        Thread consumer = new Thread(() -> {
+            waiting.countDown();
+            long begin = System.nanoTime();
+            while (ringBuffer.drain((ts, type, userId, ip, detail) -> { }, 1) == 0) {
+                ringBuffer.awaitEvents(TimeUnit.SECONDS.toNanos(30));
+            }
+            waitedNanos[0] = System.nanoTime() - begin;
+        });
+        consumer.start();
+        waiting.await();
+        Thread.sleep(50);
+        assertTrue(ringBuffer.offer(1, AuditEventType.LOGOUT, 1, null, null));
+        consumer.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(consumer.isAlive());
+        assertTrue(waitedNanos[0] < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    /**
+     * 写入的事件跨段滚动后仍能被读取工具完整、按顺序地读出
+     */
+    @Test
+    public void testSegmentRollingAndReader(@TempDir Path directory) throws Exception {
+        int events = 500;
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(directory, 16 * 1024, Long.MAX_VALUE, 100, 0)) {
+            for (int i = 0; i < events; i++) {
+                writer.append(1_700_000_000_000L + i, i % 2 == 0 ? AuditEventType.LOGIN_SUCCESS : AuditEventType.LOGIN_FAILURE,
+                        i, "10.0.0." + (i % 256), i % 3 == 0 ? null : "用户" + i);
+            }
+        }
+        assertTrue(AuditSegmentWriter.listSegments(directory).size() > 1);
+
+        List<AuditEvent> all = AuditLogReader.read(directory, event -> true, 0);
+        assertEquals(events, all.size());
+        for (int i = 0; i < events; i++) {
+            assertEquals(i, all.get(i).userId());
+        }
+        assertNull(all.get(3).detail());
+        assertEquals("用户4", all.get(4).detail());
+        assertEquals("10.0.0.5", all.get(5).clientIp());
+
+        List<AuditEvent> failures = AuditLogReader.read(directory,
+                event -> event.type() == AuditEventType.LOGIN_FAILURE, 10);
+        assertEquals(10, failures.size());
+        assertEquals(1, failures.get(0).userId());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.xiuxianloginserver.client;
+
+import com.example.xiuxianloginserver.exception.WechatAuthException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CoalescingWechatClientTest {
+
+    private WechatStubServer stub;
+    private HttpWechatClient httpClient;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        stub = new WechatStubServer(0, 200);
+        stub.start();
+        httpClient = new HttpWechatClient(RestClient.builder().baseUrl(stub.getBaseUrl()).build(),
+                new ObjectMapper(), "appid", "secret", 1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stub.stop();
+    }
+
+    /**
+     * 同一授权码的并发请求只产生一次出站调用，并且都拿到同一个会话；调用结束后不保留结果，重放的授权码被微信拒绝
+     */
+    @Test
+    public void testConcurrentExchangesShareOneCall() throws Exception {
+        CoalescingWechatClient client = new CoalescingWechatClient(httpClient, 1000);
+        int concurrency = 32;
+        List<Future<WechatSession>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrency)) {
+            for (int i = 0; i < concurrency; i++) {
+                results.add(executor.submit((Callable<WechatSession>) () -> client.exchangeCode("alice.1")));
+            }
+        }
+        String accessToken = results.get(0).get().accessToken();
+        for (Future<WechatSession> result : results) {
+            assertEquals("stub-unionid-alice", result.get().globalId());
+            assertEquals(accessToken, result.get().accessToken());
+        }
+        assertEquals(1, stub.getAccessTokenCalls());
+
+        WechatAuthException replay = assertThrows(WechatAuthException.class, () -> client.exchangeCode("alice.1"));
+        assertEquals(40163, replay.getErrorCode());
+        assertEquals(2, stub.getAccessTokenCalls());
+
+        List<Future<WechatProfile>> profiles = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrency)) {
+            for (int i = 0; i < concurrency; i++) {
+                profiles.add(executor.submit((Callable<WechatProfile>) () -> client.fetchProfile(accessToken, "stub-openid-alice")));
+            }
+        }
+        for (Future<WechatProfile> profile : profiles) {
+            assertEquals(profiles.get(0).get(), profile.get());
+        }
+        assertEquals(1, stub.getUserInfoCalls());
+    }
+
+    /**
+     * 不合并时重复提交的授权码会被微信拒绝；失败结果不会被缓存
+     */
+    @Test
+    public void testWithoutCoalescingRetriesAreRejected() {
+        httpClient.exchangeCode("bob.1");
+        WechatAuthException e = assertThrows(WechatAuthException.class, () -> httpClient.exchangeCode("bob.1"));
+        assertEquals(40163, e.getErrorCode());
+
+        CoalescingWechatClient client = new CoalescingWechatClient(httpClient, 1000);
+        assertThrows(WechatAuthException.class, () -> client.exchangeCode("invalid-code"));
+        assertThrows(WechatAuthException.class, () -> client.exchangeCode("invalid-code"));
+        assertEquals(4, stub.getAccessTokenCalls());
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.xiuxianloginserver.common;
+
+import com.example.xiuxianloginserver.config.SerializationConfig;
+import com.example.xiuxianloginserver.dto.TokenPairResponse;
+import com.example.xiuxianloginserver.util.CustomApiResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CustomApiResponseSerializerTest {
+
+    private static Jackson2ObjectMapperBuilder builder() {
+        SerializationConfig config = new SerializationConfig();
+        // 与 Spring Boot 的默认配置一致：日期写成 ISO 字符串
+        return new Jackson2ObjectMapperBuilder()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(config.authResponseModule(), config.blackbirdModule());
+    }
+
+    /**
+     * JSON 格式保持原有字段；CBOR 格式时间戳为毫秒数、省略路径，且体积更小
+     */
+    @Test
+    public void testJsonAndCborEnvelope() throws Exception {
+        CustomApiResponse<TokenPairResponse> response = new CustomApiResponse<>(
+                LocalDateTime.of(2024, 1, 2, 3, 4, 5), 200, "令牌刷新成功",
+                new TokenPairResponse("access", "refresh", 36000), "/api/auth/refresh-token");
+
+        ObjectMapper jsonMapper = builder().build();
+        byte[] json = jsonMapper.writeValueAsBytes(response);
+        JsonNode jsonNode = jsonMapper.readTree(json);
+        assertEquals("2024-01-02T03:04:05", jsonNode.get("timestamp").asText());
+        assertEquals("/api/auth/refresh-token", jsonNode.get("path").asText());
+        assertEquals("refresh", jsonNode.get("data").get("refreshToken").asText());
+        assertEquals(36000, jsonNode.get("data").get("expiresIn").asLong());
+
+        ObjectMapper cborMapper = builder().factory(new CBORFactory()).build();
+        byte[] cbor = cborMapper.writeValueAsBytes(response);
+        JsonNode cborNode = cborMapper.readTree(cbor);
+        assertTrue(cborNode.get("timestamp").isNumber());
+        assertFalse(cborNode.has("path"));
+        assertEquals("access", cborNode.get("data").get("accessToken").asText());
+        assertEquals(200, cborNode.get("status").asInt());
+        assertTrue(cbor.length < json.length);
+    }
+}
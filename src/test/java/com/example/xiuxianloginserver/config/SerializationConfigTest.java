@@ -0,0 +1,60 @@
+package com.example.xiuxianloginserver.config;
+
+import com.example.xiuxianloginserver.dto.TokenPairResponse;
+import com.example.xiuxianloginserver.util.CustomApiResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 通过应用实际使用的转换器验证 CBOR 响应使用了应用注册的 Jackson 模块。
+ */
+@SpringBootTest(classes = SerializationConfig.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+public class SerializationConfigTest {
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * CBOR 转换器输出紧凑格式的响应封装，全局 JSON ObjectMapper 不受影响
+     */
+    @Test
+    public void testCborConverterUsesApplicationModules() throws Exception {
+        CustomApiResponse<TokenPairResponse> response = new CustomApiResponse<>(
+                LocalDateTime.of(2024, 1, 2, 3, 4, 5), 200, "令牌刷新成功",
+                new TokenPairResponse("access", "refresh", 36000), "/api/auth/refresh-token");
+
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        cborConverter.write(response, MediaType.APPLICATION_CBOR, message);
+        JsonNode node = cborConverter.getObjectMapper().readTree(message.getBodyAsBytes());
+        assertTrue(node.get("timestamp").isNumber());
+        assertFalse(node.has("path"));
+        assertEquals(200, node.get("status").asInt());
+        assertEquals("access", node.get("data").get("accessToken").asText());
+        assertEquals(36000, node.get("data").get("expiresIn").asLong());
+
+        assertFalse(objectMapper.getFactory() instanceof CBORFactory);
+        assertEquals("2024-01-02T03:04:05", objectMapper.readTree(objectMapper.writeValueAsBytes(response))
+                .get("timestamp").asText());
+        assertInstanceOf(CBORFactory.class, cborConverter.getObjectMapper().getFactory());
+    }
+}
@@ -1,50 +1,99 @@
 package com.example.xiuxianloginserver.controller;
 
+import com.example.xiuxianloginserver.audit.AuditLog;
+import com.example.xiuxianloginserver.common.CustomAuthenticationEntryPoint;
+import com.example.xiuxianloginserver.dto.BulkRegistrationResult;
+import com.example.xiuxianloginserver.dto.BulkRegistrationResult.Row;
+import com.example.xiuxianloginserver.dto.BulkRegistrationResult.RowStatus;
+import com.example.xiuxianloginserver.dto.LoginResponse;
+import com.example.xiuxianloginserver.dto.TokenPairResponse;
 import com.example.xiuxianloginserver.dto.UserLoginRequest;
 import com.example.xiuxianloginserver.dto.UserRegistrationRequest;
-import com.example.xiuxianloginserver.dto.WechatRegistrationRequest;
+import com.example.xiuxianloginserver.exception.AuthorizationException;
+import com.example.xiuxianloginserver.exception.InvalidLoginException;
+import com.example.xiuxianloginserver.exception.InvalidParameterException;
+import com.example.xiuxianloginserver.exception.InvalidTokenException;
+import com.example.xiuxianloginserver.exception.UserAlreadyExistsException;
 import com.example.xiuxianloginserver.service.AuthService;
-import com.example.xiuxianloginserver.util.CustomApiResponse;
-import org.junit.jupiter.api.BeforeEach;
+import com.example.xiuxianloginserver.service.BulkRegistrationService;
+import com.example.xiuxianloginserver.service.CustomUserDetailsService;
+import com.example.xiuxianloginserver.service.SessionGenerationRegistry;
+import com.example.xiuxianloginserver.service.TokenDenylist;
+import com.example.xiuxianloginserver.service.UserStatusTable;
+import com.example.xiuxianloginserver.util.JwtTokenUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.test.web.servlet.setup.MockMvcBuilders;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.mockito.stubbing.Answer;
 
+import java.io.InputStream;
+
+import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
-import static org.hamcrest.Matchers.is;
 
+/**
+ * 控制器切片测试：服务层全部替换为 Mock，只验证请求映射、异常到状态码的转换和响应封装。
+ * 安全过滤器不参与（addFilters = false），过滤器依赖的 Bean 也以 Mock 提供，保证上下文能够启动。
+ */
 @WebMvcTest(AuthController.class)
+@AutoConfigureMockMvc(addFilters = false)
 public class AuthControllerTest {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthControllerTest.class);
 
+    @Autowired
     private MockMvc mockMvc;
 
     @MockBean
     private AuthService authService;
 
-    @InjectMocks
-    private AuthController authController;
+    @MockBean
+    private BulkRegistrationService bulkRegistrationService;
+
+    // 以下是 JwtAuthenticationFilter 的依赖
+    @MockBean
+    private JwtTokenUtil jwtTokenUtil;
+
+    @MockBean
+    private CustomUserDetailsService customUserDetailsService;
+
+    @MockBean
+    private CustomAuthenticationEntryPoint authenticationEntryPoint;
+
+    @MockBean
+    private UserStatusTable userStatusTable;
+
+    @MockBean
+    private TokenDenylist tokenDenylist;
+
+    @MockBean
+    private AuditLog auditLog;
 
-    @BeforeEach
-    public void setUp() {
-        MockitoAnnotations.openMocks(this);
-        mockMvc = MockMvcBuilders.standaloneSetup(authController).build();
-        logger.info("测试初始化完成");
+    @MockBean
+    private SessionGenerationRegistry sessionGenerationRegistry;
+
+    @MockBean
+    private MeterRegistry meterRegistry;
+
+    private static LoginResponse loginResponse() {
+        return new LoginResponse(1L, "existing_user", "existing_user", "account_password",
+                "mockJwtToken", "mockRefreshToken", 36000);
     }
 
     /**
@@ -54,8 +103,7 @@ public class AuthControllerTest {
     public void testRegister_Success() throws Exception {
         logger.info("测试：账号密码注册 - 成功");
 
-        CustomApiResponse<String> apiResponse = CustomApiResponse.success("注册成功", "mockJwtToken", "/api/auth/register");
-        when(authService.register(any(UserRegistrationRequest.class))).thenAnswer((Answer<CustomApiResponse<String>>) invocation -> apiResponse);
+        when(authService.register(any(UserRegistrationRequest.class), anyString())).thenReturn("mockJwtToken");
 
         mockMvc.perform(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -74,8 +122,8 @@ public class AuthControllerTest {
     public void testRegister_Failure_UserExists() throws Exception {
         logger.info("测试：账号密码注册 - 用户名已存在");
 
-        CustomApiResponse<String> apiResponse = CustomApiResponse.error(HttpStatus.CONFLICT.value(), "用户名已存在", "/api/auth/register");
-        when(authService.register(any(UserRegistrationRequest.class))).thenAnswer((Answer<CustomApiResponse<String>>) invocation -> apiResponse);
+        when(authService.register(any(UserRegistrationRequest.class), anyString()))
+                .thenThrow(new UserAlreadyExistsException("用户名已存在"));
 
         mockMvc.perform(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -93,15 +141,15 @@ public class AuthControllerTest {
     public void testLogin_Success() throws Exception {
         logger.info("测试：用户登录 - 成功");
 
-        CustomApiResponse<String> apiResponse = CustomApiResponse.success("登录成功", "mockJwtToken", "/api/auth/login");
-        when(authService.login(any(UserLoginRequest.class))).thenAnswer((Answer<CustomApiResponse<String>>) invocation -> apiResponse);
+        when(authService.login(any(UserLoginRequest.class), anyString())).thenReturn(loginResponse());
 
         mockMvc.perform(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"username\": \"existing_user\", \"password\": \"correctPassword\"}"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message", is("登录成功")))
-                .andExpect(jsonPath("$.data", is("mockJwtToken")));
+                .andExpect(jsonPath("$.data.accessToken", is("mockJwtToken")))
+                .andExpect(jsonPath("$.data.refreshToken", is("mockRefreshToken")));
 
         logger.info("用户登录 - 成功 测试通过");
     }
@@ -113,13 +161,12 @@ public class AuthControllerTest {
     public void testLogin_Failure_UserNotFound() throws Exception {
         logger.info("测试：用户登录 - 用户不存在");
 
-        CustomApiResponse<String> apiResponse = CustomApiResponse.error(HttpStatus.BAD_REQUEST.value(), "用户不存在", "/api/auth/login");
-        when(authService.login(any(UserLoginRequest.class))).thenAnswer((Answer<CustomApiResponse<String>>) invocation -> apiResponse);
+        when(authService.login(any(UserLoginRequest.class), anyString())).thenThrow(new InvalidLoginException("用户不存在"));
 
         mockMvc.perform(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"username\": \"non_existing_user\", \"password\": \"password\"}"))
-                .andExpect(status().isBadRequest())
+                .andExpect(status().isUnauthorized())
                 .andExpect(jsonPath("$.message", is("用户不存在")));
 
         logger.info("用户登录 - 用户不存在 测试通过");
@@ -132,8 +179,7 @@ public class AuthControllerTest {
     public void testLogin_Failure_IncorrectPassword() throws Exception {
         logger.info("测试：用户登录 - 密码错误");
 
-        CustomApiResponse<String> apiResponse = CustomApiResponse.error(HttpStatus.UNAUTHORIZED.value(), "密码错误", "/api/auth/login");
-        when(authService.login(any(UserLoginRequest.class))).thenAnswer((Answer<CustomApiResponse<String>>) invocation -> apiResponse);
+        when(authService.login(any(UserLoginRequest.class), anyString())).thenThrow(new InvalidLoginException("密码错误"));
 
         mockMvc.perform(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -151,15 +197,15 @@ public class AuthControllerTest {
     public void testRefreshToken_Success() throws Exception {
         logger.info("测试：刷新令牌 - 成功");
 
-        String oldToken = "validOldToken";
-        CustomApiResponse<String> apiResponse = CustomApiResponse.success("令牌刷新成功", "newMockJwtToken", "/api/auth/refresh-token");
-        when(authService.refreshToken(any(String.class))).thenAnswer((Answer<CustomApiResponse<String>>) invocation -> apiResponse);
+        when(authService.refreshToken(eq("validOldToken"), anyString()))
+                .thenReturn(new TokenPairResponse("newMockJwtToken", "newMockRefreshToken", 36000));
 
         mockMvc.perform(post("/api/auth/refresh-token")
-                        .header("Authorization", oldToken))
+                        .header("Authorization", "Bearer validOldToken"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message", is("令牌刷新成功")))
-                .andExpect(jsonPath("$.data", is("newMockJwtToken")));
+                .andExpect(jsonPath("$.data.accessToken", is("newMockJwtToken")))
+                .andExpect(jsonPath("$.data.refreshToken", is("newMockRefreshToken")));
 
         logger.info("刷新令牌 - 成功 测试通过");
     }
@@ -171,15 +217,84 @@ public class AuthControllerTest {
     public void testRefreshToken_Failure_InvalidToken() throws Exception {
         logger.info("测试：刷新令牌 - 无效的令牌");
 
-        String invalidToken = "invalidOldToken";
-        CustomApiResponse<String> apiResponse = CustomApiResponse.error(HttpStatus.UNAUTHORIZED.value(), "无效的令牌", "/api/auth/refresh-token");
-        when(authService.refreshToken(any(String.class))).thenAnswer((Answer<CustomApiResponse<String>>) invocation -> apiResponse);
+        when(authService.refreshToken(eq("invalidOldToken"), anyString())).thenThrow(new InvalidTokenException("无效的令牌"));
 
         mockMvc.perform(post("/api/auth/refresh-token")
-                        .header("Authorization", invalidToken))
+                        .header("Authorization", "Bearer invalidOldToken"))
                 .andExpect(status().isUnauthorized())
                 .andExpect(jsonPath("$.message", is("无效的令牌")));
 
         logger.info("刷新令牌 - 无效的令牌 测试通过");
     }
+
+    /**
+     * 测试批量开户管理密钥无效的情况，不会读取请求体
+     */
+    @Test
+    public void testBulkRegister_Failure_Forbidden() throws Exception {
+        logger.info("测试：批量开户 - 管理密钥无效");
+
+        doThrow(new AuthorizationException("管理密钥无效")).when(bulkRegistrationService).checkAdminKey(isNull());
+
+        mockMvc.perform(post("/api/auth/admin/bulk-register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"username\": \"bot_0001\", \"password\": \"password\"}]"))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message", is("管理密钥无效")));
+        verify(bulkRegistrationService, never()).provision(any(InputStream.class));
+
+        logger.info("批量开户 - 管理密钥无效 测试通过");
+    }
+
+    /**
+     * 测试批量开户返回逐行结果，以及达到单次上限时的 truncated 标记
+     */
+    @Test
+    public void testBulkRegister_RowsAndTruncation() throws Exception {
+        logger.info("测试：批量开户 - 逐行结果与截断");
+
+        BulkRegistrationResult result = new BulkRegistrationResult();
+        result.addRow(new Row(0, "bot_0001", RowStatus.CREATED, 1001L, null));
+        result.addRow(new Row(1, "bot_0001", RowStatus.DUPLICATE, null, "请求中用户名重复"));
+        result.addRow(new Row(2, "", RowStatus.INVALID, null, "用户名或密码无效"));
+        result.setTruncated(true);
+        when(bulkRegistrationService.provision(any(InputStream.class))).thenReturn(result);
+
+        mockMvc.perform(post("/api/auth/admin/bulk-register")
+                        .header("X-Admin-Token", "admin-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"username\": \"bot_0001\", \"password\": \"password\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.total", is(3)))
+                .andExpect(jsonPath("$.data.created", is(1)))
+                .andExpect(jsonPath("$.data.failed", is(2)))
+                .andExpect(jsonPath("$.data.truncated", is(true)))
+                .andExpect(jsonPath("$.data.rows[0].status", is("CREATED")))
+                .andExpect(jsonPath("$.data.rows[0].platformUserId", is(1001)))
+                .andExpect(jsonPath("$.data.rows[1].status", is("DUPLICATE")))
+                .andExpect(jsonPath("$.data.rows[2].status", is("INVALID")))
+                .andExpect(jsonPath("$.data.rows[2].message", is("用户名或密码无效")));
+        verify(bulkRegistrationService).checkAdminKey("admin-key");
+
+        logger.info("批量开户 - 逐行结果与截断 测试通过");
+    }
+
+    /**
+     * 测试批量开户请求体格式错误的情况
+     */
+    @Test
+    public void testBulkRegister_Failure_InvalidBody() throws Exception {
+        logger.info("测试：批量开户 - 请求体格式错误");
+
+        when(bulkRegistrationService.provision(any(InputStream.class)))
+                .thenThrow(new InvalidParameterException("账号数组的元素必须是对象"));
+
+        mockMvc.perform(post("/api/auth/admin/bulk-register")
+                        .header("X-Admin-Token", "admin-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2]"))
+                .andExpect(status().isBadRequest());
+
+        logger.info("批量开户 - 请求体格式错误 测试通过");
+    }
 }
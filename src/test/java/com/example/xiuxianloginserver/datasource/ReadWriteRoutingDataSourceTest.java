@@ -0,0 +1,136 @@
+package com.example.xiuxianloginserver.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 两个独立的内存数据库分别充当主库和从库，各有一行标记数据用于判断查询落在哪个库上；
+ * 心跳的“复制”由测试手动把主库的心跳值写到从库。
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private static final long MAX_LAG_MILLIS = 1_000L;
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private DataSource primaryDataSource;
+    private DataSource replicaDataSource;
+    private ReplicaHealthMonitor monitor;
+
+    @BeforeEach
+    public void setUp() {
+        long suffix = System.nanoTime();
+        primaryDataSource = new DriverManagerDataSource("jdbc:h2:mem:primary-" + suffix + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        replicaDataSource = new DriverManagerDataSource("jdbc:h2:mem:replica-" + suffix + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        for (JdbcTemplate db : new JdbcTemplate[]{primary, replica}) {
+            db.execute("CREATE TABLE marker (name VARCHAR(16))");
+            // 应用中由 ReplicationHeartbeatModel 经 ddl-auto 建表
+            db.execute("CREATE TABLE replication_heartbeat (id INT NOT NULL PRIMARY KEY, beat_millis BIGINT NOT NULL)");
+        }
+        primary.update("INSERT INTO marker VALUES ('primary')");
+        replica.update("INSERT INTO marker VALUES ('replica')");
+
+        monitor = new ReplicaHealthMonitor(primary, replica, 100L, MAX_LAG_MILLIS, clock::get);
+        monitor.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        monitor.stop();
+    }
+
+    // 把主库当前的心跳复制到从库
+    private void replicateHeartbeat() {
+        Long beat = primary.queryForObject("SELECT beat_millis FROM replication_heartbeat WHERE id = 1", Long.class);
+        replica.update("MERGE INTO replication_heartbeat KEY (id) VALUES (1, ?)", beat);
+    }
+
+    private static String whichDatabase(DataSource routing, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(routing));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> new JdbcTemplate(routing).queryForObject("SELECT name FROM marker", String.class));
+    }
+
+    /**
+     * 只读事务在从库健康时走从库；写事务和事务外的调用始终走主库；从库延迟超过上限时只读事务回到主库
+     */
+    @Test
+    public void testReadOnlyTransactionsFollowReplicaHealth() {
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, monitor));
+
+        // 心跳表还没有复制到从库
+        assertFalse(monitor.isHealthy());
+        assertEquals("primary", whichDatabase(routing, true));
+
+        replicateHeartbeat();
+        monitor.check();
+        assertTrue(monitor.isHealthy());
+        assertEquals("replica", whichDatabase(routing, true));
+        assertEquals("primary", whichDatabase(routing, false));
+        assertEquals("primary", new JdbcTemplate(routing).queryForObject("SELECT name FROM marker", String.class));
+
+        // 主库写入了新的心跳，从库停留在旧值
+        clock.addAndGet(MAX_LAG_MILLIS + 500L);
+        monitor.check();
+        assertFalse(monitor.isHealthy());
+        assertEquals(MAX_LAG_MILLIS + 500L, monitor.getLagMillis());
+        assertEquals("primary", whichDatabase(routing, true));
+
+        replicateHeartbeat();
+        monitor.check();
+        assertEquals("replica", whichDatabase(routing, true));
+    }
+
+    /**
+     * 写后读窗口内的键和从库上查不到的键都读主库
+     */
+    @Test
+    public void testReadYourWrites() {
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, monitor));
+        replicateHeartbeat();
+        monitor.check();
+
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(true, 60_000L, 100);
+        tracker.markWritten("alice");
+
+        assertEquals("primary", tracker.read("alice", () -> whichDatabase(routing, true), name -> false));
+        assertEquals("replica", tracker.read("bob", () -> whichDatabase(routing, true), name -> false));
+        // 从库上的结果视为“不存在”时，到主库再查一次
+        assertEquals("primary", tracker.read("carol", () -> whichDatabase(routing, true), "replica"::equals));
+    }
+
+    /**
+     * 获取从库连接失败时本次改用主库，并停止使用从库直到下一次健康检查
+     */
+    @Test
+    public void testFallsBackToPrimaryWhenReplicaUnavailable() {
+        replicateHeartbeat();
+        monitor.check();
+        assertTrue(monitor.isHealthy());
+
+        DataSource unreachable = new DriverManagerDataSource("jdbc:unreachable:replica");
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primaryDataSource, unreachable, monitor));
+
+        assertEquals("primary", whichDatabase(routing, true));
+        assertFalse(monitor.isHealthy());
+    }
+}
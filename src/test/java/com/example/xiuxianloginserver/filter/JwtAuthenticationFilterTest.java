@@ -0,0 +1,124 @@
+package com.example.xiuxianloginserver.filter;
+
+import com.example.xiuxianloginserver.audit.AuditLog;
+import com.example.xiuxianloginserver.common.CustomAuthenticationEntryPoint;
+import com.example.xiuxianloginserver.config.JwtProperties;
+import com.example.xiuxianloginserver.repository.RevokedTokenRepository;
+import com.example.xiuxianloginserver.repository.UserRepository;
+import com.example.xiuxianloginserver.repository.UserSessionRepository;
+import com.example.xiuxianloginserver.service.SessionGenerationRegistry;
+import com.example.xiuxianloginserver.service.TokenDenylist;
+import com.example.xiuxianloginserver.service.UserStatusTable;
+import com.example.xiuxianloginserver.util.JwtCodec;
+import com.example.xiuxianloginserver.util.JwtTokenUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 请求经过 JwtAuthenticationFilter（无状态模式，不访问数据库）的吊销、封禁检查和跳过规则。
+ */
+public class JwtAuthenticationFilterTest {
+
+    private JwtTokenUtil jwtTokenUtil;
+    private TokenDenylist tokenDenylist;
+    private UserStatusTable userStatusTable;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        JwtProperties properties = new JwtProperties();
+        properties.setActiveKid("k1");
+        properties.setKeys(Map.of("k1", Base64.getEncoder().encodeToString(new byte[64])));
+        jwtTokenUtil = new JwtTokenUtil(new JwtCodec(properties), 1000, new SimpleMeterRegistry());
+        tokenDenylist = new TokenDenylist(mock(RevokedTokenRepository.class), 1000);
+        userStatusTable = new UserStatusTable(mock(UserRepository.class), true);
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtTokenUtil", jwtTokenUtil);
+        ReflectionTestUtils.setField(filter, "authenticationEntryPoint", new CustomAuthenticationEntryPoint());
+        ReflectionTestUtils.setField(filter, "userStatusTable", userStatusTable);
+        ReflectionTestUtils.setField(filter, "tokenDenylist", tokenDenylist);
+        ReflectionTestUtils.setField(filter, "auditLog", new AuditLog(false, "target/filter-test-audit", 16, 1, 60, 1, 1, 1000));
+        ReflectionTestUtils.setField(filter, "sessionRegistry", new SessionGenerationRegistry(
+                mock(UserSessionRepository.class), new TransactionTemplate(), jwtTokenUtil, false));
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "statelessEnabled", true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletResponse send(String method, String uri, String token, MockFilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    /**
+     * 校验令牌和登出接口同样经过过滤器：已吊销的令牌被拒绝，请求不会到达控制器
+     */
+    @Test
+    public void testRevokedTokenIsRejectedOnAuthEndpoints() throws Exception {
+        String token = jwtTokenUtil.generateToken(1L, "account_password", "player");
+        MockFilterChain accepted = new MockFilterChain();
+        assertEquals(200, send("GET", "/api/auth/validate-token", token, accepted).getStatus());
+        assertNotNull(accepted.getRequest());
+
+        tokenDenylist.revoke(jwtTokenUtil.verify(token));
+        SecurityContextHolder.clearContext();
+        for (String uri : new String[]{"/api/auth/validate-token", "/api/auth/logout"}) {
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletResponse response = send("POST", uri, token, chain);
+            assertEquals(401, response.getStatus());
+            assertTrue(response.getContentAsString().contains("TOKEN_REVOKED"), response.getContentAsString());
+            assertNull(chain.getRequest());
+        }
+    }
+
+    /**
+     * 无状态模式下被封禁用户的令牌被拒绝
+     */
+    @Test
+    public void testRestrictedUserIsRejected() throws Exception {
+        String token = jwtTokenUtil.generateToken(2L, "account_password", "banned");
+        userStatusTable.markBanned(2L, true);
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = send("GET", "/api/auth/validate-token", token, chain);
+        assertEquals(401, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    /**
+     * 登录、注册、刷新等签发令牌的接口不校验访问令牌
+     */
+    @Test
+    public void testTokenIssuingEndpointsAreSkipped() throws Exception {
+        for (String uri : new String[]{"/api/auth/login", "/api/auth/register", "/api/auth/wechat/login", "/api/auth/refresh-token"}) {
+            MockFilterChain chain = new MockFilterChain();
+            assertEquals(200, send("POST", uri, "not-an-access-token", chain).getStatus());
+            assertNotNull(chain.getRequest());
+        }
+    }
+}
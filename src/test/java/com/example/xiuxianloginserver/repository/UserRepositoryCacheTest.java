@@ -0,0 +1,118 @@
+package com.example.xiuxianloginserver.repository;
+
+import com.example.xiuxianloginserver.config.HibernateCacheConfig;
+import com.example.xiuxianloginserver.datasource.ReadYourWritesTracker;
+import com.example.xiuxianloginserver.models.UserModel;
+import com.example.xiuxianloginserver.service.CustomUserDetailsService;
+import com.example.xiuxianloginserver.service.UserStatusTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 在内存数据库上验证 UserModel 的二级缓存和用户名自然 ID 缓存。
+ * 每次仓库调用都在各自的事务（会话）中执行，确保命中的是二级缓存而不是一级缓存。
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserRepositoryCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository.deleteAll();
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    private static UserModel newUser(long id, String userName) {
+        UserModel user = new UserModel();
+        user.setPlatformUserId(id);
+        user.setUserName(userName);
+        user.setNickName(userName);
+        user.setPassword("hash");
+        user.setAuthType("account_password");
+        return user;
+    }
+
+    /**
+     * 按用户名和 ID 重复查找只在第一次访问数据库
+     */
+    @Test
+    public void testRepeatLookupsHitSecondLevelCache() {
+        userRepository.saveAndFlush(newUser(1L, "player1"));
+        statistics.clear();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1L, userRepository.findByUserName("player1").orElseThrow().getPlatformUserId());
+            assertEquals("player1", userRepository.findById(1L).orElseThrow().getUserName());
+        }
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getDomainDataRegionStatistics(UserModel.CACHE_REGION).getHitCount() >= 6);
+        assertEquals(3, statistics.getDomainDataRegionStatistics(UserModel.NATURAL_ID_CACHE_REGION).getHitCount());
+    }
+
+    /**
+     * 通过实体保存的修改会更新缓存，之后的查找读到新值
+     */
+    @Test
+    public void testSaveUpdatesCachedEntity() {
+        userRepository.saveAndFlush(newUser(2L, "player2"));
+        UserModel loaded = userRepository.findByUserName("player2").orElseThrow();
+
+        loaded.setBanned(true);
+        userRepository.saveAndFlush(loaded);
+        statistics.clear();
+
+        assertTrue(userRepository.findByUserName("player2").orElseThrow().isBanned());
+        assertTrue(userRepository.findById(2L).orElseThrow().isBanned());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(userRepository.findByUserName("nobody").isEmpty());
+    }
+
+    /**
+     * 用户详情缓存的失效方法同时清除二级缓存，封禁后重新加载读到的是数据库中的新状态
+     */
+    @Test
+    public void testDetailsEvictionAlsoClearsSecondLevelCache() {
+        userRepository.saveAndFlush(newUser(3L, "player3"));
+        CustomUserDetailsService detailsService = new CustomUserDetailsService(userRepository,
+                new UserStatusTable(userRepository, false), 100, 300, new SimpleMeterRegistry(),
+                new ReadYourWritesTracker(false, 0, 0), entityManagerFactory);
+        assertTrue(detailsService.loadUserByPlatformUserId(3L).isAccountNonLocked());
+
+        // 模拟其他途径直接修改数据库，二级缓存中仍是旧实体
+        jdbcTemplate.update("UPDATE users SET banned = TRUE WHERE platform_user_id = 3");
+        assertFalse(userRepository.findById(3L).orElseThrow().isBanned());
+
+        detailsService.onUserBanned(3L, true);
+        assertFalse(detailsService.loadUserByPlatformUserId(3L).isAccountNonLocked());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.xiuxianloginserver.service;
+
+import com.example.xiuxianloginserver.client.WechatStubServer;
+import com.example.xiuxianloginserver.dto.LoginResponse;
+import com.example.xiuxianloginserver.dto.UserRegistrationRequest;
+import com.example.xiuxianloginserver.exception.UserAlreadyExistsException;
+import com.example.xiuxianloginserver.models.UserModel;
+import com.example.xiuxianloginserver.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 在内存数据库上启动完整应用，验证注册和微信登录流程；微信接口由本地模拟服务提供。
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:auth-service-test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "auth.audit.directory=target/auth-service-test-audit",
+        "auth.login-rate-limit.enabled=false",
+        "auth.wechat.stub.enabled=true"
+})
+public class AuthServiceTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WechatStubServer wechatStub;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository.deleteAll();
+    }
+
+    private static UserRegistrationRequest registration(String username) {
+        UserRegistrationRequest request = new UserRegistrationRequest();
+        request.setUsername(username);
+        request.setPassword("password-123");
+        return request;
+    }
+
+    /**
+     * 用户名重复时报告为已存在
+     */
+    @Test
+    public void testDuplicateUsernameIsReported() {
+        assertNotNull(authService.register(registration("duplicate_user")));
+        assertThrows(UserAlreadyExistsException.class, () -> authService.register(registration("duplicate_user")));
+        assertEquals(1, userRepository.count());
+    }
+
+    /**
+     * 其他写入失败（这里是用户名超出列长度）不能当作用户名重复
+     */
+    @Test
+    public void testOtherIntegrityViolationIsNotReportedAsDuplicate() {
+        assertThrows(DataIntegrityViolationException.class, () -> authService.register(registration("x".repeat(65))));
+        assertEquals(0, userRepository.count());
+    }
+
+    /**
+     * 首次微信登录自动注册，之后用同一微信用户的新授权码登录进入同一个账号，不再获取用户资料
+     */
+    @Test
+    public void testWechatFirstLoginRegistersAccount() {
+        LoginResponse first = authService.wechatLogin("alice.1", "10.0.0.1");
+        assertEquals("wechat", first.getAuthType());
+        assertEquals("微信玩家alice", first.getNickName());
+        assertNotNull(first.getAccessToken());
+        assertEquals(first.getPlatformUserId(),
+                userRepository.findLoginViewByPlatformGlobalId("stub-unionid-alice").orElseThrow().getPlatformUserId());
+
+        long profileCalls = wechatStub.getUserInfoCalls();
+        LoginResponse second = authService.wechatLogin("alice.2", "10.0.0.1");
+        assertEquals(first.getPlatformUserId(), second.getPlatformUserId());
+        assertEquals(profileCalls, wechatStub.getUserInfoCalls());
+        assertEquals(1, userRepository.count());
+    }
+
+    /**
+     * 同一微信用户并发首次登录只创建一个账号，所有请求都登录到该账号
+     */
+    @Test
+    public void testConcurrentFirstWechatLoginsCreateOneAccount() throws Exception {
+        int concurrency = 16;
+        List<Future<LoginResponse>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrency)) {
+            for (int i = 0; i < concurrency; i++) {
+                String code = "bob." + i;
+                results.add(executor.submit((Callable<LoginResponse>) () -> authService.wechatLogin(code, "10.0.0.2")));
+            }
+        }
+        Long platformUserId = results.get(0).get().getPlatformUserId();
+        for (Future<LoginResponse> result : results) {
+            assertEquals(platformUserId, result.get().getPlatformUserId());
+        }
+        assertEquals(1, userRepository.count());
+    }
+
+    /**
+     * 没有 unionid 时以 openid 注册的账号，拿到 unionid 后补写并登录原账号，不会再注册一个账号
+     */
+    @Test
+    public void testOpenIdAccountIsBackfilledWithUnionId() {
+        UserModel legacy = new UserModel();
+        legacy.setPlatformUserId(42L);
+        legacy.setPlatformGlobalId("stub-openid-carol");
+        legacy.setUserName("wx_42");
+        legacy.setNickName("carol");
+        legacy.setPassword("!");
+        legacy.setAuthType("wechat");
+        userRepository.saveAndFlush(legacy);
+
+        LoginResponse response = authService.wechatLogin("carol.1", "10.0.0.3");
+        assertEquals(42L, response.getPlatformUserId());
+        assertEquals(1, userRepository.count());
+        assertEquals("stub-unionid-carol", userRepository.findById(42L).orElseThrow().getPlatformGlobalId());
+        assertTrue(userRepository.findLoginViewByPlatformGlobalId("stub-openid-carol").isEmpty());
+
+        // 之后按 unionid 直接找到该账号
+        assertEquals(42L, authService.wechatLogin("carol.2", "10.0.0.3").getPlatformUserId());
+        assertEquals(1, userRepository.count());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.xiuxianloginserver.service;
+
+import com.example.xiuxianloginserver.exception.InvalidParameterException;
+import com.example.xiuxianloginserver.repository.UserRepository;
+import com.example.xiuxianloginserver.util.IdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * 批量开户请求体的格式校验，格式错误在访问数据库之前就被拒绝。
+ */
+public class BulkRegistrationServiceTest {
+
+    private UserRepository userRepository;
+    private BulkRegistrationService service;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository = mock(UserRepository.class);
+        service = new BulkRegistrationService(userRepository, mock(PasswordEncoder.class), mock(IdGenerator.class),
+                new ObjectMapper(), mock(TransactionTemplate.class), 500, 10000, 1, "");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    private static ByteArrayInputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 数组元素不是对象时拒绝整个请求，而不是当作空数组返回成功
+     */
+    @Test
+    public void testNonObjectElementsAreRejected() {
+        assertThrows(InvalidParameterException.class, () -> service.provision(body("[1, 2]")));
+        assertThrows(InvalidParameterException.class,
+                () -> service.provision(body("[{\"username\": \"bot_0001\", \"password\": \"password\"}, \"bot_0002\"]")));
+        assertThrows(InvalidParameterException.class, () -> service.provision(body("{\"username\": \"bot_0001\"}")));
+        verifyNoInteractions(userRepository);
+    }
+
+    /**
+     * 空数组是合法请求
+     */
+    @Test
+    public void testEmptyArray() throws Exception {
+        assertEquals(0, service.provision(body("[]")).getTotal());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.xiuxianloginserver.service;
+
+import com.example.xiuxianloginserver.config.HibernateCacheConfig;
+import com.example.xiuxianloginserver.models.UserModel;
+import com.example.xiuxianloginserver.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 在内存数据库上验证登录统计的合并、批量写入和二级缓存清除。
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LoginStatsRecorderTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository.deleteAll();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    private LoginStatsRecorder recorder(int maxPending) {
+        return new LoginStatsRecorder(new JdbcTemplate(dataSource), new TransactionTemplate(transactionManager),
+                entityManagerFactory, new SimpleMeterRegistry(), true, maxPending, 2);
+    }
+
+    private UserModel saveUser(long id) {
+        UserModel user = new UserModel();
+        user.setPlatformUserId(id);
+        user.setUserName("player" + id);
+        user.setNickName("player" + id);
+        user.setPassword("hash");
+        user.setAuthType("account_password");
+        return userRepository.saveAndFlush(user);
+    }
+
+    /**
+     * 同一用户的多次登录合并成一条，刷新后次数累加、IP 取最后一次；缓存中的旧实体被清除
+     */
+    @Test
+    public void testLoginsAreCoalescedAndFlushed() {
+        for (long id = 1; id <= 3; id++) {
+            saveUser(id);
+        }
+        // 先把用户 1 加载进二级缓存
+        assertNull(userRepository.findById(1L).orElseThrow().getLastLogin());
+
+        LoginStatsRecorder recorder = recorder(100);
+        recorder.record(1L, "10.0.0.1");
+        recorder.record(1L, "10.0.0.2");
+        recorder.record(1L, "10.0.0.3");
+        recorder.record(2L, null);
+        recorder.record(3L, "10.0.0.9");
+        assertEquals(3, recorder.pendingCount());
+
+        recorder.flush();
+        assertEquals(0, recorder.pendingCount());
+
+        UserModel first = userRepository.findById(1L).orElseThrow();
+        assertEquals(3, first.getLoginCount());
+        assertEquals("10.0.0.3", first.getLastLoginIp());
+        assertNotNull(first.getLastLogin());
+        assertEquals(1, userRepository.findById(2L).orElseThrow().getLoginCount());
+        assertEquals(1, userRepository.findById(3L).orElseThrow().getLoginCount());
+
+        // 保存实体不会用旧值覆盖登录统计
+        first.setBanned(true);
+        userRepository.saveAndFlush(first);
+        recorder.record(1L, "10.0.0.4");
+        recorder.shutdown();
+        entityManagerFactory.getCache().evictAll();
+        UserModel reloaded = userRepository.findById(1L).orElseThrow();
+        assertEquals(4, reloaded.getLoginCount());
+        assertEquals("10.0.0.4", reloaded.getLastLoginIp());
+    }
+
+    /**
+     * 缓冲区满时丢弃新用户的登录，已在缓冲区中的用户继续合并
+     */
+    @Test
+    public void testFullBufferDropsNewUsers() {
+        saveUser(1L);
+        LoginStatsRecorder recorder = recorder(1);
+        recorder.record(1L, null);
+        recorder.record(2L, null);
+        recorder.record(1L, null);
+
+        assertEquals(1, recorder.pendingCount());
+        assertEquals(1, recorder.getDroppedCount());
+        recorder.flush();
+        assertEquals(2, userRepository.findById(1L).orElseThrow().getLoginCount());
+    }
+}
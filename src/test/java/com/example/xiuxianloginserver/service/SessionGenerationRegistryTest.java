@@ -0,0 +1,140 @@
+package com.example.xiuxianloginserver.service;
+
+import com.example.xiuxianloginserver.config.HibernateCacheConfig;
+import com.example.xiuxianloginserver.models.UserSessionModel;
+import com.example.xiuxianloginserver.repository.UserSessionRepository;
+import com.example.xiuxianloginserver.util.JwtTokenUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 在内存数据库上验证会话代号的分配和同步，两个 SessionGenerationRegistry 实例模拟两个节点。
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SessionGenerationRegistryTest {
+
+    @Autowired
+    private UserSessionRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private SessionGenerationRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        repository.deleteAll();
+        registry = newNode();
+    }
+
+    private SessionGenerationRegistry newNode() {
+        JwtTokenUtil jwtTokenUtil = mock(JwtTokenUtil.class);
+        when(jwtTokenUtil.getAccessTokenValiditySeconds()).thenReturn(36000L);
+        return new SessionGenerationRegistry(repository, new TransactionTemplate(transactionManager), jwtTokenUtil, true);
+    }
+
+    /**
+     * 再次登录后旧会话代号的令牌（以及没有 sgen 声明的旧令牌）被拒绝，新令牌放行
+     */
+    @Test
+    public void testNewLoginReplacesPreviousSession() {
+        assertTrue(registry.isCurrent(1L, null));
+
+        Long first = registry.startSession(1L);
+        assertTrue(registry.isCurrent(1L, first));
+
+        Long second = registry.startSession(1L);
+        assertTrue(second > first);
+        assertFalse(registry.isCurrent(1L, first));
+        assertFalse(registry.isCurrent(1L, null));
+        assertTrue(registry.isCurrent(1L, second));
+        // 其他用户不受影响
+        assertTrue(registry.isCurrent(2L, first));
+        assertEquals(second, repository.findById(1L).orElseThrow().getGeneration());
+    }
+
+    /**
+     * 其他节点的登录同步过来后顶替本节点的旧会话，晚到的旧代号不会覆盖更新的代号
+     */
+    @Test
+    public void testSyncAppliesRemoteLoginsWithoutGoingBackwards() {
+        SessionGenerationRegistry otherNode = newNode();
+        Long local = registry.startSession(1L);
+        Long remote = otherNode.startSession(1L);
+        assertTrue(remote > local);
+
+        registry.sync();
+        assertFalse(registry.isCurrent(1L, local));
+        assertTrue(registry.isCurrent(1L, remote));
+
+        // 只有本节点知道的更新代号不会被同步结果回退
+        Long newer = registry.startSession(1L);
+        otherNode.sync();
+        registry.sync();
+        assertTrue(registry.isCurrent(1L, newer));
+        assertTrue(otherNode.isCurrent(1L, newer));
+    }
+
+    /**
+     * 多个节点并发登录同一账号（包括首次登录），数据库分配的代号互不相同
+     */
+    @Test
+    public void testConcurrentLoginsGetDistinctGenerations() throws Exception {
+        int logins = 16;
+        List<Future<Long>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(logins)) {
+            for (int i = 0; i < logins; i++) {
+                SessionGenerationRegistry node = newNode();
+                results.add(executor.submit((Callable<Long>) () -> node.startSession(7L)));
+            }
+        }
+        Set<Long> generations = new HashSet<>();
+        for (Future<Long> result : results) {
+            generations.add(result.get());
+        }
+        assertEquals(logins, generations.size());
+        assertEquals(logins, repository.findById(7L).orElseThrow().getGeneration());
+    }
+
+    /**
+     * 刷新令牌以数据库中的代号为准
+     */
+    @Test
+    public void testStoreCheckUsesDatabaseGeneration() {
+        UserSessionModel session = new UserSessionModel();
+        session.setPlatformUserId(1L);
+        session.setGeneration(5L);
+        session.setUpdatedAt(System.currentTimeMillis());
+        repository.save(session);
+
+        assertTrue(registry.isCurrentInStore(1L, 5L));
+        assertFalse(registry.isCurrentInStore(1L, 4L));
+        assertTrue(registry.isCurrentInStore(2L, null));
+        // 查询结果同时更新内存表
+        assertFalse(registry.isCurrent(1L, 4L));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.xiuxianloginserver.service;
+
+import com.example.xiuxianloginserver.config.HibernateCacheConfig;
+import com.example.xiuxianloginserver.config.JwtProperties;
+import com.example.xiuxianloginserver.repository.RevokedTokenRepository;
+import com.example.xiuxianloginserver.security.VerifiedToken;
+import com.example.xiuxianloginserver.util.JwtCodec;
+import com.example.xiuxianloginserver.util.JwtTokenUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 在内存数据库上验证重复吊销同一令牌。
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class TokenDenylistTest {
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    /**
+     * 多个节点（或同一节点的并发登出）同时吊销同一令牌，只写入一条记录且都不报错
+     */
+    @Test
+    public void testConcurrentRevocationsOfSameToken() throws Exception {
+        JwtProperties properties = new JwtProperties();
+        properties.setActiveKid("k1");
+        properties.setKeys(Map.of("k1", Base64.getEncoder().encodeToString(new byte[64])));
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(new JwtCodec(properties), 1000, new SimpleMeterRegistry());
+        VerifiedToken token = jwtTokenUtil.verify(jwtTokenUtil.generateToken(1L, "account_password", "player"));
+
+        int nodes = 8;
+        List<TokenDenylist> denylists = new ArrayList<>();
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(nodes)) {
+            for (int i = 0; i < nodes; i++) {
+                TokenDenylist denylist = new TokenDenylist(revokedTokenRepository, 1000);
+                denylists.add(denylist);
+                results.add(executor.submit(() -> denylist.revoke(token)));
+            }
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        denylists.get(0).revoke(token);
+
+        assertEquals(1, revokedTokenRepository.count());
+        for (TokenDenylist denylist : denylists) {
+            assertTrue(denylist.isRevoked(token.getJti()));
+        }
+    }
+}
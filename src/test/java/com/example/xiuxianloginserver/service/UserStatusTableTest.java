@@ -0,0 +1,68 @@
+package com.example.xiuxianloginserver.service;
+
+import com.example.xiuxianloginserver.repository.UserRepository;
+import com.example.xiuxianloginserver.repository.UserStatusView;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UserStatusTableTest {
+
+    private static UserStatusView status(Long platformUserId, boolean enabled, boolean banned) {
+        UserStatusView view = mock(UserStatusView.class);
+        when(view.getPlatformUserId()).thenReturn(platformUserId);
+        when(view.isEnabled()).thenReturn(enabled);
+        when(view.isBanned()).thenReturn(banned);
+        return view;
+    }
+
+    /**
+     * 刷新期间的封禁、解封在替换后的新表中仍然有效，不会被刷新前读取的旧数据覆盖
+     */
+    @Test
+    public void testMarksDuringRefreshAreKept() {
+        UserRepository repository = mock(UserRepository.class);
+        UserStatusTable table = new UserStatusTable(repository, true);
+        List<UserStatusView> snapshot = List.of(status(1L, true, true), status(2L, false, false));
+        when(repository.findRestrictedUsers()).thenAnswer(invocation -> {
+            // 查询已读取快照之后才发生的变更
+            table.markBanned(1L, false);
+            table.markBanned(3L, true);
+            return snapshot;
+        });
+
+        table.refresh();
+        assertFalse(table.isRestricted(1L));
+        assertTrue(table.isRestricted(2L));
+        assertTrue(table.isRestricted(3L));
+        assertEquals(2, table.size());
+
+        // 刷新结束后不再重放
+        when(repository.findRestrictedUsers()).thenReturn(snapshot);
+        table.refresh();
+        assertTrue(table.isRestricted(1L));
+        assertFalse(table.isRestricted(3L));
+    }
+
+    /**
+     * 未开启无状态模式时不查询数据库
+     */
+    @Test
+    public void testDisabledTableIsNotRefreshed() {
+        UserRepository repository = mock(UserRepository.class);
+        UserStatusTable table = new UserStatusTable(repository, false);
+        table.refresh();
+        table.markBanned(1L, true);
+
+        verify(repository, never()).findRestrictedUsers();
+        assertFalse(table.isRestricted(1L));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.xiuxianloginserver.service;
+
+import com.example.xiuxianloginserver.config.HibernateCacheConfig;
+import com.example.xiuxianloginserver.exception.ServiceBusyException;
+import com.example.xiuxianloginserver.util.SnowflakeIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 多个节点（各自的 WorkerIdLeaser + SnowflakeIdGenerator）共用同一个内存数据库中的租约表，表由实体定义。
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class WorkerIdLeaserTest {
+
+    private static final long TTL_MILLIS = 30_000L;
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private final List<WorkerIdLeaser> leasers = new ArrayList<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.update("DELETE FROM worker_id_leases");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        leasers.forEach(WorkerIdLeaser::stop);
+    }
+
+    private SnowflakeIdGenerator startNode(String owner, int blockSize) {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(blockSize, clock::get);
+        WorkerIdLeaser leaser = new WorkerIdLeaser(jdbcTemplate, generator, owner, TTL_MILLIS, 10_000L, 2_000L, clock::get);
+        leaser.start();
+        leasers.add(leaser);
+        return generator;
+    }
+
+    /**
+     * 每个节点租到不同的机器 ID，多节点多线程（含按线程预分配号段）生成的 ID 全部唯一
+     */
+    @Test
+    public void testNodesLeaseDistinctWorkerIdsAndGenerateUniqueIds() throws Exception {
+        List<SnowflakeIdGenerator> nodes = List.of(startNode("node-a", 1), startNode("node-b", 64), startNode("node-c", 64));
+        Set<Integer> workerIds = new HashSet<>();
+        nodes.forEach(node -> workerIds.add(node.getWorkerId()));
+        assertEquals(3, workerIds.size());
+
+        ExecutorService pool = Executors.newFixedThreadPool(12);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (SnowflakeIdGenerator node : nodes) {
+                for (int t = 0; t < 4; t++) {
+                    futures.add(pool.submit(() -> {
+                        long[] ids = new long[2000];
+                        for (int i = 0; i < ids.length; i++) {
+                            ids[i] = node.nextId();
+                        }
+                        return ids;
+                    }));
+                }
+            }
+            Set<Long> all = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                for (long id : future.get()) {
+                    assertTrue(all.add(id), "duplicate id " + id);
+                }
+            }
+            assertEquals(12 * 2000, all.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 节点正常下线时释放租约，接手的节点立即复用该机器 ID，且生成的 ID 都大于前一个节点生成的 ID
+     */
+    @Test
+    public void testReleasedWorkerIdIsReusedWithLaterTimestamps() {
+        SnowflakeIdGenerator first = startNode("node-a", 1);
+        long maxId = 0;
+        // 时钟不动，生成超过一毫秒序列号容量的 ID，迫使其借用之后的毫秒
+        for (int i = 0; i < 10_000; i++) {
+            maxId = Math.max(maxId, first.nextId());
+        }
+        leasers.remove(0).stop();
+
+        SnowflakeIdGenerator second = startNode("node-b", 1);
+        assertEquals(first.getWorkerId(), second.getWorkerId());
+        assertTrue(second.nextId() > maxId);
+    }
+
+    /**
+     * 节点失联超过租约时长后其机器 ID 被接手；失联节点停止生成，恢复后发现租约丢失并改租新的机器 ID
+     */
+    @Test
+    public void testExpiredLeaseIsTakenOverAndOldOwnerMovesOn() {
+        SnowflakeIdGenerator stale = startNode("node-a", 1);
+        WorkerIdLeaser staleLeaser = leasers.get(0);
+        int workerId = stale.getWorkerId();
+
+        clock.addAndGet(TTL_MILLIS + 1);
+        assertThrows(ServiceBusyException.class, stale::nextId);
+
+        SnowflakeIdGenerator successor = startNode("node-b", 1);
+        assertEquals(workerId, successor.getWorkerId());
+
+        staleLeaser.renew();
+        assertNotEquals(workerId, stale.getWorkerId());
+        assertNotEquals(stale.nextId(), successor.nextId());
+    }
+}
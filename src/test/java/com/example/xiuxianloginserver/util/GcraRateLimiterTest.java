@@ -0,0 +1,34 @@
+package com.example.xiuxianloginserver.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GcraRateLimiterTest {
+
+    /**
+     * 突发额度用完后被拒绝，并给出准确的等待时间；时间推进后额度恢复
+     */
+    @Test
+    public void testBurstAndRecovery() {
+        AtomicLong clock = new AtomicLong(1_000_000_000L);
+        GcraRateLimiter limiter = new GcraRateLimiter(3, Duration.ofSeconds(1), 100, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0L, limiter.tryAcquire("alice"));
+        }
+        assertEquals(TimeUnit.SECONDS.toNanos(1), limiter.tryAcquire("alice"));
+
+        // 其他键不受影响
+        assertEquals(0L, limiter.tryAcquire("bob"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0L, limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("alice") > 0);
+    }
+}
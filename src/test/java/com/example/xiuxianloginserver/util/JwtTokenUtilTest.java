@@ -0,0 +1,80 @@
+package com.example.xiuxianloginserver.util;
+
+import com.example.xiuxianloginserver.config.JwtProperties;
+import com.example.xiuxianloginserver.exception.JwtAuthenticationException;
+import com.example.xiuxianloginserver.security.VerifiedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JwtTokenUtilTest {
+
+    private static final String KEY_1 = Base64.getEncoder().encodeToString(new byte[64]);
+    private static final String KEY_2 = Base64.getEncoder().encodeToString("k2-secret-k2-secret-k2-secret-k2-secret-k2-secret-k2-secret-k2-s".getBytes());
+
+    private static JwtTokenUtil tokenUtil(String activeKid, Map<String, String> keys) {
+        JwtProperties properties = new JwtProperties();
+        properties.setActiveKid(activeKid);
+        properties.setKeys(keys);
+        return new JwtTokenUtil(new JwtCodec(properties), 1000, new SimpleMeterRegistry());
+    }
+
+    /**
+     * 签发的令牌可以被同一密钥环验签，并且同一令牌只解析一次
+     */
+    @Test
+    public void testGenerateAndVerify() {
+        JwtTokenUtil jwtTokenUtil = tokenUtil("k1", Map.of("k1", KEY_1));
+
+        String token = jwtTokenUtil.generateToken(42L, "account_password", "player");
+        VerifiedToken verified = jwtTokenUtil.verify(token);
+
+        assertEquals(42L, verified.getPlatformUserId());
+        assertEquals("account_password", verified.getAuthType());
+        assertEquals("player", verified.getName());
+        assertSame(verified, jwtTokenUtil.verify(token));
+    }
+
+    /**
+     * 轮换密钥后，旧密钥签发的令牌在旧密钥仍在密钥环中时依然有效
+     */
+    @Test
+    public void testKeyRotation() {
+        String oldToken = tokenUtil("k1", Map.of("k1", KEY_1)).generateToken(1L, "account_password", "old");
+
+        JwtTokenUtil rotated = tokenUtil("k2", Map.of("k1", KEY_1, "k2", KEY_2));
+        assertEquals(1L, rotated.verify(oldToken).getPlatformUserId());
+
+        JwtTokenUtil retired = tokenUtil("k2", Map.of("k2", KEY_2));
+        assertThrows(JwtAuthenticationException.class, () -> retired.verify(oldToken));
+    }
+
+    /**
+     * 只有缓存未命中时才计入验签耗时，失败按错误码区分
+     */
+    @Test
+    public void testVerifyMetrics() {
+        JwtProperties properties = new JwtProperties();
+        properties.setActiveKid("k1");
+        properties.setKeys(Map.of("k1", KEY_1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(new JwtCodec(properties), 1000, registry);
+
+        String token = jwtTokenUtil.generateToken(7L, "account_password", "player");
+        jwtTokenUtil.verify(token);
+        jwtTokenUtil.verify(token);
+        String foreign = tokenUtil("k1", Map.of("k1", KEY_2)).generateToken(7L, "account_password", "player");
+        assertThrows(JwtAuthenticationException.class, () -> jwtTokenUtil.verify(foreign));
+
+        assertEquals(1, registry.get("auth.jwt.sign").timer().count());
+        assertEquals(1, registry.get("auth.jwt.verify").tag("outcome", "valid").timer().count());
+        assertEquals(1, registry.get("auth.jwt.verify").tag("outcome", "invalid_signature").timer().count());
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "jwt.verified", "result", "hit").functionCounter().count());
+    }
+}